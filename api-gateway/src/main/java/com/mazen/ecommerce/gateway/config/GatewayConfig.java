@@ -1,11 +1,20 @@
 package com.mazen.ecommerce.gateway.config;
 
 import com.mazen.ecommerce.gateway.filter.JwtValidationFilter;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.function.Function;
 
 @Configuration
 //@LoadBalancerClient(name = "wallet-service")
@@ -14,10 +23,48 @@ import org.springframework.web.reactive.function.client.WebClient;
 public class GatewayConfig {
 
     @Bean
+    @LoadBalanced
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
 
+    // Dedicated pool for token validation calls, shared by every request instead of a client per call
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider authServiceConnectionProvider(
+            @Value("${gateway.auth-client.pool.max-connections:200}") int maxConnections,
+            @Value("${gateway.auth-client.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${gateway.auth-client.pool.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${gateway.auth-client.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${gateway.auth-client.pool.evict-in-background:60s}") Duration evictInBackground) {
+        return ConnectionProvider.builder("auth-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(evictInBackground)
+                // reactor.netty.connection.provider.* gauges (active, idle, pending connections)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient authServiceWebClient(
+            WebClient.Builder webClientBuilder,
+            ConnectionProvider authServiceConnectionProvider,
+            @Value("${gateway.auth-client.base-url:http://AUTH-SERVICE}") String baseUrl,
+            @Value("${gateway.auth-client.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${gateway.auth-client.response-timeout:2s}") Duration responseTimeout) {
+        HttpClient httpClient = HttpClient.create(authServiceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
+                .metrics(true, Function.identity());
+
+        return webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
 
     // Post-auth version
     @Bean
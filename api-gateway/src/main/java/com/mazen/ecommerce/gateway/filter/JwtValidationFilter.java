@@ -1,6 +1,12 @@
 package com.mazen.ecommerce.gateway.filter;
 
+import com.mazen.ecommerce.gateway.security.GatewayIdentitySigner;
+import com.mazen.ecommerce.gateway.security.InFlightTokenValidations;
+import com.mazen.ecommerce.gateway.security.LocalJwtVerifier;
+import com.mazen.ecommerce.gateway.security.TokenValidationCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.*;
@@ -10,12 +16,32 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidationFilter.Config> {
 
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    @Qualifier("authServiceWebClient")
+    private WebClient authServiceWebClient;
+
+    @Autowired
+    private LocalJwtVerifier localJwtVerifier;
+
+    @Autowired
+    private TokenValidationCache tokenValidationCache;
+
+    @Autowired
+    private InFlightTokenValidations inFlightTokenValidations;
+
+    @Autowired
+    private GatewayIdentitySigner gatewayIdentitySigner;
+
+    @Value("${gateway.jwt.local-verification.enabled:false}")
+    private boolean localVerificationEnabled;
+
+    @Value("${gateway.jwt.remote-fallback.enabled:true}")
+    private boolean remoteFallbackEnabled;
 
     public JwtValidationFilter() {
         super(Config.class);
@@ -31,20 +57,14 @@ public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidat
                 return unauthorizedResponse(exchange);
             }
 
-            // Call auth service to validate token
-            return webClientBuilder.build()
-                    .post()
-                    .uri("lb://AUTH-SERVICE/api/internal/validate-token")
-                    .header(HttpHeaders.AUTHORIZATION, authHeader)
-                    .retrieve()
-                    .bodyToMono(TokenValidationResponse.class)
-                    .flatMap(response -> {
-                        if (response.getSuccess() && response.getData().isValid()) {
+            return validateToken(authHeader)
+                    .flatMap(data -> {
+                        if (data.isValid()) {
                             // Add user info to headers for downstream services
-                            var mutatedRequest = exchange.getRequest().mutate()
-                                    .header("X-User-Id", response.getData().getUserId().toString())
-                                    .header("X-User-Email", response.getData().getEmail())
-                                    .header("X-User-Role", response.getData().getRole().toString())
+                            var request = exchange.getRequest();
+                            var mutatedRequest = request.mutate()
+                                    .headers(headers -> setIdentityHeaders(headers, data,
+                                            request.getMethod().name(), request.getURI().getRawPath()))
                                     .build();
 
                             return chain.filter(exchange.mutate().request(mutatedRequest).build());
@@ -56,6 +76,56 @@ public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidat
         };
     }
 
+    private void setIdentityHeaders(HttpHeaders headers, TokenData data, String method, String path) {
+        // Overwrite whatever the client sent, identity headers only ever come from the gateway
+        headers.remove(GatewayIdentitySigner.TIMESTAMP_HEADER);
+        headers.remove(GatewayIdentitySigner.SIGNATURE_HEADER);
+        headers.set(GatewayIdentitySigner.USER_ID_HEADER, data.getUserId().toString());
+        headers.set(GatewayIdentitySigner.USER_EMAIL_HEADER, data.getEmail());
+        headers.set(GatewayIdentitySigner.USER_ROLE_HEADER, data.getRole());
+
+        if (gatewayIdentitySigner.isEnabled()) {
+            long timestamp = System.currentTimeMillis();
+            headers.set(GatewayIdentitySigner.TIMESTAMP_HEADER, Long.toString(timestamp));
+            headers.set(GatewayIdentitySigner.SIGNATURE_HEADER, gatewayIdentitySigner.sign(
+                    method, path, data.getUserId(), data.getEmail(), data.getRole(), timestamp));
+        }
+    }
+
+    private Mono<TokenData> validateToken(String authHeader) {
+        if (!localVerificationEnabled) {
+            return validateRemotely(authHeader);
+        }
+
+        Optional<TokenData> local = localJwtVerifier.verify(authHeader.substring(7));
+        if (local.isPresent()) {
+            return Mono.just(local.get());
+        }
+
+        // The gateway could not vouch for the token, fall back to auth-service if allowed
+        return remoteFallbackEnabled ? validateRemotely(authHeader) : Mono.just(new TokenData());
+    }
+
+    private Mono<TokenData> validateRemotely(String authHeader) {
+        String token = authHeader.substring(7);
+        Optional<TokenData> cached = tokenValidationCache.get(token);
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+
+        // Concurrent requests with the same token share a single call to auth service
+        return inFlightTokenValidations.join(token, () -> authServiceWebClient
+                .post()
+                .uri("/api/internal/validate-token")
+                .header(HttpHeaders.AUTHORIZATION, authHeader)
+                .retrieve()
+                .bodyToMono(TokenValidationResponse.class)
+                .map(response -> response.getSuccess() && response.getData() != null
+                        ? response.getData()
+                        : new TokenData())
+                .doOnNext(data -> tokenValidationCache.put(token, data)));
+    }
+
     private Mono<Void> unauthorizedResponse(/*org.springframework.cloud.gateway.filter.GatewayFilterChain.ServerHttpResponse response,
                                             */ServerHttpResponse response) {
         response.setStatusCode(HttpStatus.UNAUTHORIZED);
@@ -0,0 +1,66 @@
+package com.mazen.ecommerce.gateway.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Signs the X-User-* identity headers the gateway forwards, so downstream services can trust
+ * them without parsing the JWT again. Services verify the signature with the same internal key.
+ * The signature covers the request method and path too, so captured headers cannot be replayed
+ * against another endpoint within the allowed clock skew.
+ */
+@Slf4j
+@Component
+public class GatewayIdentitySigner {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+    public static final String TIMESTAMP_HEADER = "X-User-Timestamp";
+    public static final String SIGNATURE_HEADER = "X-User-Signature";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Value("${security.gateway-identity.signing-key:}")
+    private String signingKey;
+
+    private SecretKeySpec keySpec;
+
+    @PostConstruct
+    void init() {
+        if (!StringUtils.hasText(signingKey)) {
+            log.info("security.gateway-identity.signing-key is not set, identity headers will be forwarded unsigned");
+            return;
+        }
+        keySpec = new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public boolean isEnabled() {
+        return keySpec != null;
+    }
+
+    public String sign(String method, String path, Long userId, String email, String role, long timestamp) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(keySpec);
+            byte[] signature = mac.doFinal(canonical(method, path, userId, email, role, timestamp).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign gateway identity", e);
+        }
+    }
+
+    // Must match GatewayIdentityFilter in wallet-service; routes forward the path unchanged
+    private static String canonical(String method, String path, Long userId, String email, String role, long timestamp) {
+        return method + "\n" + path + "\n" + userId + "\n" + email + "\n" + role + "\n" + timestamp;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mazen.ecommerce.gateway.security;
+
+import com.mazen.ecommerce.gateway.filter.JwtValidationFilter.TokenData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for token validation: concurrent requests carrying the same token share
+ * one auth-service call instead of each issuing their own.
+ */
+@Component
+public class InFlightTokenValidations {
+
+    private final Map<String, Mono<TokenData>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter started;
+    private final Counter coalesced;
+
+    public InFlightTokenValidations(MeterRegistry meterRegistry) {
+        this.started = Counter.builder("gateway.token-validation.calls")
+                .description("Validate-token calls actually sent to auth-service")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("gateway.token-validation.coalesced")
+                .description("Validations that joined a call already in flight for the same token")
+                .register(meterRegistry);
+        Gauge.builder("gateway.token-validation.in-flight", inFlight, Map::size)
+                .description("Distinct tokens currently being validated")
+                .register(meterRegistry);
+    }
+
+    public Mono<TokenData> join(String token, Supplier<Mono<TokenData>> validation) {
+        return Mono.defer(() -> {
+            String key = TokenDigest.of(token);
+            boolean[] leader = {false};
+
+            Mono<TokenData> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                // cache() replays the single result (or error) to every subscriber that joined;
+                // the entry is dropped once the call terminates so later requests start fresh
+                return validation.get()
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+
+            if (leader[0]) {
+                started.increment();
+            } else {
+                coalesced.increment();
+            }
+            return shared;
+        });
+    }
+}
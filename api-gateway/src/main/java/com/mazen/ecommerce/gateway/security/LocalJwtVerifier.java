@@ -0,0 +1,80 @@
+package com.mazen.ecommerce.gateway.security;
+
+import com.mazen.ecommerce.gateway.filter.JwtValidationFilter.TokenData;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+
+/**
+ * Verifies access tokens inside the gateway using the same HS256 key material as
+ * auth-service's JwtService, so a valid token needs no call to AUTH-SERVICE.
+ */
+@Slf4j
+@Component
+public class LocalJwtVerifier {
+
+    @Value("${security.jwt.secret:}")
+    private String jwtSecret;
+
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        if (!StringUtils.hasText(jwtSecret)) {
+            log.warn("security.jwt.secret is not set, local JWT verification will defer every token to auth-service");
+            return;
+        }
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .build();
+    }
+
+    /**
+     * @return the verified token data, an invalid result when the token is conclusively rejected
+     * (expired, malformed, unsupported), or empty when the gateway cannot vouch for the token
+     * (no key configured, signature mismatch, missing claims) and auth-service should decide.
+     */
+    public Optional<TokenData> verify(String token) {
+        if (jwtParser == null) {
+            return Optional.empty();
+        }
+
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+            Long userId = claims.get("id", Long.class);
+            String role = claims.get("role", String.class);
+            if (userId == null || role == null || claims.getSubject() == null) {
+                log.debug("Token is missing identity claims, deferring to auth-service");
+                return Optional.empty();
+            }
+
+            TokenData data = new TokenData();
+            data.setValid(true);
+            data.setUserId(userId);
+            data.setEmail(claims.getSubject());
+            data.setRole(role);
+            return Optional.of(data);
+
+        } catch (ExpiredJwtException | MalformedJwtException | UnsupportedJwtException | IllegalArgumentException e) {
+            log.debug("Token rejected locally: {}", e.getMessage());
+            return Optional.of(new TokenData());
+        } catch (JwtException e) {
+            // Signature mismatch, e.g. during a key rotation: let auth-service have the final word
+            log.debug("Token could not be verified locally: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.mazen.ecommerce.gateway.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mazen.ecommerce.gateway.filter.JwtValidationFilter.TokenData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Bounded cache of successful auth-service validations, keyed by a SHA-256 digest of the token.
+ * An entry never outlives the token itself: it expires at min(configured TTL, token exp).
+ */
+@Slf4j
+@Component
+public class TokenValidationCache {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Cache<String, CachedValidation> cache;
+    private final Duration ttl;
+    private final boolean enabled;
+
+    public TokenValidationCache(@Value("${gateway.jwt.cache.enabled:true}") boolean enabled,
+                                @Value("${gateway.jwt.cache.max-size:10000}") long maxSize,
+                                @Value("${gateway.jwt.cache.ttl:5m}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String key, CachedValidation value) -> value.timeToLive()))
+                .recordStats()
+                .build();
+
+        // Exposes cache.gets{result=hit|miss}, cache.evictions, cache.size under /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.token-validation");
+    }
+
+    public Optional<TokenData> get(String token) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedValidation cached = cache.getIfPresent(TokenDigest.of(token));
+        return cached == null ? Optional.empty() : Optional.of(cached.data());
+    }
+
+    public void put(String token, TokenData data) {
+        if (!enabled || !data.isValid()) {
+            return;
+        }
+
+        Duration timeToLive = readExpiry(token)
+                .map(exp -> Duration.between(Instant.now(), exp))
+                .filter(untilExpiry -> untilExpiry.compareTo(ttl) < 0)
+                .orElse(ttl);
+
+        if (!timeToLive.isNegative() && !timeToLive.isZero()) {
+            cache.put(TokenDigest.of(token), new CachedValidation(data, timeToLive));
+        }
+    }
+
+    // The token was just validated by auth-service, so the payload is only read here to bound the TTL
+    private Optional<Instant> readExpiry(String token) {
+        int payloadStart = token.indexOf('.');
+        int payloadEnd = token.indexOf('.', payloadStart + 1);
+        if (payloadStart < 0 || payloadEnd < 0) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(payloadStart + 1, payloadEnd));
+            JsonNode exp = objectMapper.readTree(payload).get("exp");
+            return exp != null && exp.canConvertToLong()
+                    ? Optional.of(Instant.ofEpochSecond(exp.asLong()))
+                    : Optional.empty();
+        } catch (Exception e) {
+            log.debug("Could not read token expiry: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private record CachedValidation(TokenData data, Duration timeToLive) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.mazen.ecommerce.gateway.security;
+
+import com.mazen.ecommerce.gateway.filter.JwtValidationFilter.TokenData;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalJwtVerifierTests {
+
+    private static final String SECRET = "mySecretKey1234567890abcdefghijklmnopqrstuvwxyz";
+
+    private LocalJwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new LocalJwtVerifier();
+        ReflectionTestUtils.setField(verifier, "jwtSecret", SECRET);
+        verifier.init();
+    }
+
+    @Test
+    void acceptsTokenSignedWithSharedSecret() {
+        Optional<TokenData> result = verifier.verify(token(SECRET, 60_000));
+
+        assertTrue(result.isPresent());
+        assertTrue(result.get().isValid());
+        assertEquals(42L, result.get().getUserId());
+        assertEquals("user@ecom.com", result.get().getEmail());
+        assertEquals("USER", result.get().getRole());
+    }
+
+    @Test
+    void rejectsExpiredTokenWithoutFallback() {
+        Optional<TokenData> result = verifier.verify(token(SECRET, -60_000));
+
+        assertTrue(result.isPresent());
+        assertFalse(result.get().isValid());
+    }
+
+    @Test
+    void defersTokenSignedWithAnotherKey() {
+        Optional<TokenData> result = verifier.verify(token(SECRET + "-rotated", 60_000));
+
+        assertTrue(result.isEmpty());
+    }
+
+    private String token(String secret, long expiresInMs) {
+        Date now = new Date();
+        return Jwts.builder()
+                .claim("id", 42L)
+                .claim("role", "USER")
+                .setSubject("user@ecom.com")
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + expiresInMs))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
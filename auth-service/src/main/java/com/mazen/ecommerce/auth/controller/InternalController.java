@@ -4,6 +4,7 @@
 // ================================
 package com.mazen.ecommerce.auth.controller;
 
+import com.mazen.ecommerce.auth.dto.request.BatchTokenValidationRequest;
 import com.mazen.ecommerce.auth.dto.response.ApiResponse;
 import com.mazen.ecommerce.auth.dto.response.TokenValidationResponse;
 import com.mazen.ecommerce.auth.dto.response.UserResponse;
@@ -11,11 +12,14 @@ import com.mazen.ecommerce.auth.service.AuthService;
 import com.mazen.ecommerce.auth.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/internal")
@@ -50,6 +54,25 @@ public class InternalController {
         }
     }
 
+    @Operation(summary = "Validate tokens in batch (Internal)",
+            description = "Validate many JWT tokens in one call; results are returned in request order")
+    @PostMapping("/validate-tokens")
+    public ResponseEntity<ApiResponse<List<TokenValidationResponse>>> validateTokensInternal(
+            @Valid @RequestBody BatchTokenValidationRequest request) {
+
+        try {
+            List<TokenValidationResponse> responses = authService.validateTokens(request.getTokens());
+
+            return ResponseEntity.ok(
+                    ApiResponse.success("Token validation completed", responses));
+
+        } catch (Exception e) {
+            log.error("Internal batch token validation failed", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Token validation failed: " + e.getMessage()));
+        }
+    }
+
     @Operation(summary = "Get user by ID (Internal)", description = "Get user information by ID for other microservices")
     @GetMapping("/users/{userId}")
     public ResponseEntity<ApiResponse<UserResponse>> getUserByIdInternal(@PathVariable Long userId) {
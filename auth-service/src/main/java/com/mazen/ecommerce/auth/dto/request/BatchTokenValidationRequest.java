@@ -0,0 +1,16 @@
+package com.mazen.ecommerce.auth.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTokenValidationRequest {
+
+    // Raw tokens or "Bearer <token>" values; results come back in the same order
+    @NotEmpty(message = "At least one token is required")
+    @Size(max = 500, message = "At most 500 tokens can be validated per request")
+    private List<String> tokens;
+}
@@ -0,0 +1,42 @@
+package com.mazen.ecommerce.auth.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Supplier;
+
+/**
+ * Lets a request through only when it carries the shared internal secret in X-Internal-Token. The gateway
+ * also routes /api/internal/** from clients, so the path alone does not tell a backend service from a client.
+ * Without a configured secret every request is denied.
+ */
+@Slf4j
+@Component
+public class InternalCallerAuthorization implements AuthorizationManager<RequestAuthorizationContext> {
+
+    public static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
+
+    private final byte[] secret;
+
+    public InternalCallerAuthorization(@Value("${security.internal.secret:}") String secret) {
+        this.secret = StringUtils.hasText(secret) ? secret.getBytes(StandardCharsets.UTF_8) : null;
+        if (this.secret == null) {
+            log.warn("security.internal.secret is not set, internal endpoints that require it will reject every call");
+        }
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        String token = context.getRequest().getHeader(INTERNAL_TOKEN_HEADER);
+        return new AuthorizationDecision(secret != null && token != null
+                && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
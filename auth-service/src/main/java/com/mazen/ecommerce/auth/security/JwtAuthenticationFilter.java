@@ -1,6 +1,9 @@
 package com.mazen.ecommerce.auth.security;
 
+import com.mazen.ecommerce.auth.model.User;
+import com.mazen.ecommerce.auth.model.enums.Role;
 import com.mazen.ecommerce.auth.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,6 +11,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +21,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -25,6 +30,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+
+    // Build the principal from the verified claims only, without loading the user from the database
+    @Value("${security.jwt.stateless-authentication:false}")
+    private boolean statelessAuthentication;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -34,26 +44,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = getTokenFromRequest(request);
 
-            if (token != null && jwtService.validateToken(token)) {
-                String email = jwtService.getEmailFromToken(token);
+            Optional<Claims> claims = token != null ? jwtService.parseValidClaims(token) : Optional.empty();
+
+            if (claims.isPresent()) {
+                String email = claims.get().getSubject();
 
-                // Load user details
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                // Load user details (from the claims, or from the database through the short-lived cache)
+                UserDetails userDetails = statelessAuthentication
+                        ? userFromClaims(claims.get())
+                        : userDetailsCache.get(email, userDetailsService::loadUserByUsername);
 
-                // Create authentication object
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+                if (userDetails != null) {
+                    // Create authentication object
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities()
+                            );
 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                // Set authentication in security context
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    // Set authentication in security context
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                log.debug("Successfully authenticated user: {}", email);
+                    log.debug("Successfully authenticated user: {}", email);
+                }
             }
         } catch (JwtException e) {
             log.error("JWT authentication failed: {}", e.getMessage());
@@ -66,6 +82,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Refresh tokens carry no id/role claims, so they never authenticate a request in this mode
+    private User userFromClaims(Claims claims) {
+        Long userId = claims.get("id", Long.class);
+        String role = claims.get("role", String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+
+        return User.builder()
+                .id(userId)
+                .email(claims.getSubject())
+                .name(claims.get("name", String.class))
+                .role(Role.valueOf(role))
+                .build();
+    }
+
     private String getTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,45 @@
+package com.mazen.ecommerce.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Short-lived, size-bounded cache of loaded users for requests that need the full User as principal.
+ * Entries are evicted by UserService whenever a user's profile, password, role or status changes.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, UserDetails> cache;
+    private final boolean enabled;
+
+    public UserDetailsCache(@Value("${security.user-cache.enabled:false}") boolean enabled,
+                            @Value("${security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${security.user-cache.ttl:30s}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.user-details");
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        return enabled ? cache.get(email, loader) : loader.apply(email);
+    }
+
+    public void evict(String email) {
+        cache.invalidate(email);
+    }
+}
@@ -17,6 +17,7 @@ import com.mazen.ecommerce.auth.model.enums.Role;
 import com.mazen.ecommerce.auth.repository.UserRepository;
 import com.mazen.ecommerce.auth.security.JwtService;
 import com.mazen.ecommerce.auth.security.SecurityUtils;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,8 +25,13 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -131,13 +137,15 @@ public class AuthService {
         }
     }
 
-    @Transactional(readOnly = true)
+    // Pure signature/claims check: no transaction, so no pooled DB connection is checked out per call
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TokenValidationResponse validateToken(String token) {
         try {
-            if (jwtService.validateToken(token)) {
-                String email = jwtService.getEmailFromToken(token);
-                Long userId = jwtService.getUserIdFromToken(token);
-                String roleStr = jwtService.getRoleFromToken(token);
+            Optional<Claims> claims = jwtService.parseValidClaims(token);
+            if (claims.isPresent()) {
+                String email = claims.get().getSubject();
+                Long userId = claims.get().get("id", Long.class);
+                String roleStr = claims.get().get("role", String.class);
                 Role role = Role.valueOf(roleStr);
 
                 return TokenValidationResponse.builder()
@@ -157,6 +165,14 @@ public class AuthService {
                 .build();
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TokenValidationResponse> validateTokens(List<String> tokens) {
+        return tokens.stream()
+                .map(token -> token != null && token.startsWith("Bearer ") ? token.substring(7) : token)
+                .map(this::validateToken)
+                .collect(Collectors.toList());
+    }
+
     @Transactional(readOnly = true)
     public boolean isUserEnabled(String email) {
         return userRepository.findByEmail(email)
@@ -9,6 +9,7 @@ import com.mazen.ecommerce.auth.model.User;
 import com.mazen.ecommerce.auth.model.enums.Role;
 import com.mazen.ecommerce.auth.repository.UserRepository;
 import com.mazen.ecommerce.auth.security.SecurityUtils;
+import com.mazen.ecommerce.auth.security.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -28,6 +29,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
 
     @Transactional(readOnly = true)
     public UserResponse getCurrentUserProfile() {
@@ -55,6 +57,7 @@ public class UserService {
             user.setEmail(request.getEmail());
         }
 
+        userDetailsCache.evict(email);
         User savedUser = userRepository.save(user);
         log.info("User profile updated successfully for user: {}", savedUser.getEmail());
 
@@ -74,6 +77,7 @@ public class UserService {
         // Encode and set new password
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        userDetailsCache.evict(user.getEmail());
 
         log.info("Password changed successfully for user: {}", user.getEmail());
     }
@@ -106,6 +110,7 @@ public class UserService {
         Role oldRole = user.getRole();
         user.setRole(newRole);
         User savedUser = userRepository.save(user);
+        userDetailsCache.evict(savedUser.getEmail());
 
         log.info("User role changed from {} to {} for user: {}",
                 oldRole, newRole, savedUser.getEmail());
@@ -119,6 +124,7 @@ public class UserService {
 
         user.setIsEnabled(!user.getIsEnabled());
         User savedUser = userRepository.save(user);
+        userDetailsCache.evict(savedUser.getEmail());
 
         log.info("User status toggled to {} for user: {}",
                 savedUser.getIsEnabled() ? "enabled" : "disabled", savedUser.getEmail());
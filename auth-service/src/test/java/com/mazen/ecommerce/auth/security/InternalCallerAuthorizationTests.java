@@ -0,0 +1,37 @@
+package com.mazen.ecommerce.auth.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalCallerAuthorizationTests {
+
+    private static final String SECRET = "myInternalSecret1234567890abcdefghijklmnopqrs";
+
+    @Test
+    void grantsOnlyCallersWithTheSharedSecret() {
+        InternalCallerAuthorization authorization = new InternalCallerAuthorization(SECRET);
+
+        assertTrue(authorization.check(() -> null, context(SECRET)).isGranted());
+        assertFalse(authorization.check(() -> null, context(SECRET + "x")).isGranted());
+        assertFalse(authorization.check(() -> null, context(null)).isGranted());
+    }
+
+    @Test
+    void deniesEveryoneWithoutAConfiguredSecret() {
+        InternalCallerAuthorization authorization = new InternalCallerAuthorization("");
+
+        assertFalse(authorization.check(() -> null, context("")).isGranted());
+        assertFalse(authorization.check(() -> null, context(null)).isGranted());
+    }
+
+    private RequestAuthorizationContext context(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/internal/validate-tokens");
+        if (token != null) {
+            request.addHeader(InternalCallerAuthorization.INTERNAL_TOKEN_HEADER, token);
+        }
+        return new RequestAuthorizationContext(request);
+    }
+}
@@ -0,0 +1,73 @@
+package com.mazen.ecommerce.auth.security;
+
+import com.mazen.ecommerce.auth.model.User;
+import com.mazen.ecommerce.auth.model.enums.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token validation as /api/internal/validate-tokens does it, before and after caching the key and parser.
+ * Not run by the build: start main() (or org.openjdk.jmh.Main) from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "mySecretKey1234567890abcdefghijklmnopqrstuvwxyz";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpirationMs", 900_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpirationMs", 604_800_000L);
+        jwtService.init();
+        token = jwtService.generateAccessToken(User.builder()
+                .id(7L)
+                .name("Seller")
+                .email("user@ecom.com")
+                .password("encoded")
+                .role(Role.SELLER)
+                .build());
+    }
+
+    // Before: validate, email, userId and role each derived the key, built a parser and parsed the token
+    @Benchmark
+    public Claims keyAndParserPerCall() {
+        Claims claims = null;
+        for (int i = 0; i < 4; i++) {
+            claims = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        }
+        return claims;
+    }
+
+    // After: one parse with the key and parser built at startup
+    @Benchmark
+    public Optional<Claims> cachedParser() {
+        return jwtService.parseValidClaims(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
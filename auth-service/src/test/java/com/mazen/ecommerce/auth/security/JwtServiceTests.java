@@ -0,0 +1,59 @@
+package com.mazen.ecommerce.auth.security;
+
+import com.mazen.ecommerce.auth.model.User;
+import com.mazen.ecommerce.auth.model.enums.Role;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTests {
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", "mySecretKey1234567890abcdefghijklmnopqrstuvwxyz");
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpirationMs", 900_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpirationMs", 604_800_000L);
+        jwtService.init();
+    }
+
+    @Test
+    void parseValidClaimsReturnsAllIdentityClaimsInOnePass() {
+        String token = jwtService.generateAccessToken(user());
+
+        Optional<Claims> claims = jwtService.parseValidClaims(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals("user@ecom.com", claims.get().getSubject());
+        assertEquals(7L, claims.get().get("id", Long.class));
+        assertEquals("SELLER", claims.get().get("role", String.class));
+        assertNotNull(claims.get().getExpiration());
+    }
+
+    @Test
+    void parseValidClaimsRejectsTamperedToken() {
+        String token = jwtService.generateAccessToken(user());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(jwtService.parseValidClaims(tampered).isEmpty());
+        assertFalse(jwtService.validateToken(tampered));
+        assertFalse(jwtService.validateToken("not-a-jwt"));
+    }
+
+    private User user() {
+        return User.builder()
+                .id(7L)
+                .name("Seller")
+                .email("user@ecom.com")
+                .password("encoded")
+                .role(Role.SELLER)
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.mazen.ecommerce.inventory.product;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log of catalog edits (name, description, price, deletion). Other services poll it
+ * by id to invalidate their product caches; stock changes are not logged here.
+ */
+@Entity
+@Table(name = "catalog_changes", indexes = @Index(name = "idx_catalog_change_time", columnList = "changedAt"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String sku;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+}
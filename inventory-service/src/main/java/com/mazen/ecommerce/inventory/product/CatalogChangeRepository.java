@@ -0,0 +1,24 @@
+package com.mazen.ecommerce.inventory.product;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    List<CatalogChange> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CatalogChange c")
+    long findLatestId();
+
+    @Modifying
+    @Query("DELETE FROM CatalogChange c WHERE c.changedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,65 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.CatalogChangesResponse;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogChangeService {
+
+    private final CatalogChangeRepository catalogChangeRepository;
+
+    @Value("${inventory.catalog-changes.retention:1h}")
+    private Duration retention;
+
+    public void recordChange(String sku) {
+        catalogChangeRepository.save(CatalogChange.builder()
+                .sku(sku)
+                .changedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * @param afterId the last change id the caller has seen, or a negative value on first poll
+     *                (which only returns the current position so the caller starts from "now")
+     */
+    public CatalogChangesResponse getChangesAfter(long afterId, int limit) {
+        if (afterId < 0) {
+            return CatalogChangesResponse.builder()
+                    .lastChangeId(catalogChangeRepository.findLatestId())
+                    .skus(List.of())
+                    .hasMore(false)
+                    .build();
+        }
+
+        List<CatalogChange> changes = catalogChangeRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId, PageRequest.of(0, limit));
+        return CatalogChangesResponse.builder()
+                .lastChangeId(changes.isEmpty() ? afterId : changes.get(changes.size() - 1).getId())
+                .skus(changes.stream().map(CatalogChange::getSku).distinct().collect(Collectors.toList()))
+                .hasMore(changes.size() == limit)
+                .build();
+    }
+
+    // Pollers only need recent history, anything older is covered by their cache TTL
+    @Scheduled(fixedDelayString = "${inventory.catalog-changes.cleanup-interval-ms:600000}")
+    @Transactional
+    public void deleteOldChanges() {
+        int deleted = catalogChangeRepository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Deleted {} catalog change records", deleted);
+        }
+    }
+}
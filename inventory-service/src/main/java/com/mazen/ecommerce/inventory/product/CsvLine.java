@@ -0,0 +1,47 @@
+package com.mazen.ecommerce.inventory.product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a single CSV line (RFC 4180 quoting, "" as an escaped quote). Records spanning several
+ * lines are not supported, supplier feeds are one product per line.
+ */
+final class CsvLine {
+
+    private CsvLine() {
+    }
+
+    static List<String> parse(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted value");
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mazen.ecommerce.inventory.product.dto.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of products by SKU, split in two: catalog fields (name, description, price)
+ * change rarely and are kept for minutes, the stock counter changes on every order and is kept
+ * for seconds. Writes in this instance invalidate both right away and again after commit.
+ */
+@Component
+public class ProductCache {
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final Cache<String, ProductResponse> catalogCache;
+    private final Cache<String, Integer> stockCache;
+
+    public ProductCache(ProductRepository productRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${inventory.product-cache.enabled:true}") boolean enabled,
+                        @Value("${inventory.product-cache.max-size:10000}") long maxSize,
+                        @Value("${inventory.product-cache.catalog-ttl:10m}") Duration catalogTtl,
+                        @Value("${inventory.product-cache.stock-ttl:2s}") Duration stockTtl) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.catalogCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(catalogTtl)
+                .recordStats()
+                .build();
+        this.stockCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(stockTtl)
+                .recordStats()
+                .build();
+
+        // cache.gets{result=hit|miss} and cache.load.duration under /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, catalogCache, "inventory.product-catalog");
+        CaffeineCacheMetrics.monitor(meterRegistry, stockCache, "inventory.product-stock");
+    }
+
+    public Optional<ProductResponse> getProduct(String sku) {
+        if (!enabled) {
+            return productRepository.findBySku(sku).map(ProductService::toResponse)
+                    .flatMap(catalog -> getStock(sku).map(stock -> withStock(catalog, stock)));
+        }
+
+        ProductResponse catalog = catalogCache.get(sku, key -> productRepository.findBySku(key)
+                .map(ProductService::toResponse)
+                .orElse(null));
+        if (catalog == null) {
+            return Optional.empty();
+        }
+
+        return getStock(sku).map(stock -> withStock(catalog, stock));
+    }
+
+    // Available stock: the products snapshot plus the pending stock ledger tail
+    public Optional<Integer> getStock(String sku) {
+        if (!enabled) {
+            return productRepository.findAvailableStockBySku(sku);
+        }
+        return Optional.ofNullable(stockCache.get(sku, key -> productRepository.findAvailableStockBySku(key).orElse(null)));
+    }
+
+    public void invalidate(String sku) {
+        runNowAndAfterCommit(() -> {
+            catalogCache.invalidate(sku);
+            stockCache.invalidate(sku);
+        });
+    }
+
+    public void invalidateStock(String sku) {
+        runNowAndAfterCommit(() -> stockCache.invalidate(sku));
+    }
+
+    private static ProductResponse withStock(ProductResponse catalog, int stock) {
+        return ProductResponse.builder()
+                .id(catalog.getId())
+                .sku(catalog.getSku())
+                .name(catalog.getName())
+                .description(catalog.getDescription())
+                .price(catalog.getPrice())
+                .stockQuantity(stock)
+                .createdAt(catalog.getCreatedAt())
+                .updatedAt(catalog.getUpdatedAt())
+                .build();
+    }
+
+    // A read between the invalidation and the commit would reload the old row, so invalidate once more after commit
+    private void runNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
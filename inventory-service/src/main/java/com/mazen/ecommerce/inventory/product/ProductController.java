@@ -1,8 +1,17 @@
 package com.mazen.ecommerce.inventory.product;
 
+import com.mazen.ecommerce.inventory.product.dto.BulkStockRequest;
+import com.mazen.ecommerce.inventory.product.dto.CatalogChangesResponse;
+import com.mazen.ecommerce.inventory.product.dto.ProductImportResponse;
 import com.mazen.ecommerce.inventory.product.dto.ProductRequest;
 import com.mazen.ecommerce.inventory.product.dto.ProductResponse;
+import com.mazen.ecommerce.inventory.product.dto.ProductScrollResponse;
+import com.mazen.ecommerce.inventory.product.dto.ProductSearchResponse;
+import com.mazen.ecommerce.inventory.product.dto.SkuBatchRequest;
+import com.mazen.ecommerce.inventory.product.dto.StockMovementResponse;
 import com.mazen.ecommerce.inventory.product.dto.UpdateProductRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -10,12 +19,21 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/inventory")
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogChangeService catalogChangeService;
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
+    private final ProductSearchService productSearchService;
+    private final StockLedgerService stockLedgerService;
 
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(
@@ -31,6 +49,53 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductBySku(sku));
     }
 
+    // Multi-get for carts and order validation: one request and one query instead of one per SKU
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductResponse>> getProductsBySkus(
+            @Valid @RequestBody SkuBatchRequest request
+    ){
+        return ResponseEntity.ok(productService.getProductsBySkus(request.getSkus()));
+    }
+
+    // Keyset listing for large exports: pass nextCursor back until hasMore is false
+    @GetMapping("/scroll")
+    public ResponseEntity<ProductScrollResponse> scrollProducts(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(productService.scrollProducts(cursor, Math.min(Math.max(size, 1), 1000)));
+    }
+
+    // Full-text search over name and description; each word also matches as a prefix ("lap" finds "laptop")
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(@RequestParam String q,
+                                                                @RequestParam(defaultValue = "0") int page,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productSearchService.search(q, Math.max(page, 0), Math.min(Math.max(size, 1), 100)));
+    }
+
+    // Supplier feed upload: CSV (with a header row) or NDJSON, upserted by SKU, per-row errors in the response
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResponse> importProducts(HttpServletRequest request) throws IOException {
+        ProductImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), format));
+    }
+
+    // Full catalog as NDJSON (one ProductResponse per line), streamed while it is read from the database
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void exportProducts(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        productExportService.exportNdjson(response.getOutputStream());
+    }
+
+    // Polled by shop-service to invalidate its product cache: SKUs whose catalog changed after the given id
+    @GetMapping("/catalog-changes")
+    public ResponseEntity<CatalogChangesResponse> getCatalogChanges(@RequestParam(defaultValue = "-1") long after,
+                                                                    @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(catalogChangeService.getChangesAfter(after, Math.min(Math.max(limit, 1), 1000)));
+    }
+
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> getAllProducts(@RequestParam(defaultValue = "0") int page,
                                                                 @RequestParam(defaultValue = "20") int size) {
@@ -60,21 +125,47 @@ public class ProductController {
         return ResponseEntity.ok(productService.isInStock(sku, quantity));
     }
 
+    // Stock ledger of one product, newest first: what changed the stock, when, and for which order
+    @GetMapping("/{sku}/movements")
+    public ResponseEntity<Page<StockMovementResponse>> getStockMovements(@PathVariable String sku,
+                                                                         @RequestParam(defaultValue = "0") int page,
+                                                                         @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(stockLedgerService.getMovements(sku, page, Math.min(Math.max(size, 1), 500)));
+    }
+
     @PostMapping("/{sku}/decrease")
     public ResponseEntity<Void> decreaseStock(
             @PathVariable String sku,
-            @RequestParam int quantity
+            @RequestParam int quantity,
+            @RequestParam(required = false) String reference,
+            @RequestParam(required = false) String requestId
     ) {
-        productService.decreaseStock(sku, quantity);
+        productService.decreaseStock(sku, quantity, reference, requestId);
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/{sku}/increase")
     public ResponseEntity<Void> increaseStock(
             @PathVariable String sku,
-            @RequestParam int quantity
+            @RequestParam int quantity,
+            @RequestParam(required = false) String reference
     ) {
-        productService.increaseStock(sku, quantity);
+        productService.increaseStock(sku, quantity, reference);
+        return ResponseEntity.ok().build();
+    }
+
+    // Reserve a whole cart in one call: all lines are decremented or none (409 when any SKU is short)
+    @PostMapping("/bulk/decrease")
+    public ResponseEntity<Void> decreaseStock(@Valid @RequestBody BulkStockRequest request) {
+        productService.decreaseStock(request.getLines(), StockMovementReason.SALE, request.getReference());
+        return ResponseEntity.ok().build();
+    }
+
+    // Release a previously reserved cart, e.g. when payment fails
+    @PostMapping("/bulk/increase")
+    public ResponseEntity<Void> increaseStock(@Valid @RequestBody BulkStockRequest request) {
+        productService.increaseStock(request.getLines(), request.getReference(), request.getRequestId(),
+                request.getRevokedRequestId());
         return ResponseEntity.ok().build();
     }
 
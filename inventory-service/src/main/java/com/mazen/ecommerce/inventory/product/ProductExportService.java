@@ -0,0 +1,84 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mazen.ecommerce.inventory.product.dto.ProductResponse;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as newline-delimited JSON straight from a forward-only result stream.
+ * Rows are fetched from the driver in chunks of the fetch size and detached once written, so memory
+ * stays flat no matter how many products there are.
+ */
+@Slf4j
+@Service
+public class ProductExportService {
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final StockLedgerService stockLedgerService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${inventory.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public ProductExportService(EntityManager entityManager,
+                                ObjectMapper objectMapper,
+                                StockLedgerService stockLedgerService,
+                                PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.stockLedgerService = stockLedgerService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @return the number of products written
+     */
+    public long exportNdjson(OutputStream out) {
+        Long exported = readOnlyTransaction.execute(status -> {
+            ObjectWriter writer = objectMapper.writerFor(ProductResponse.class);
+            OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            // The pending tail is short (the compactor drains it), so one grouped query covers the whole catalog
+            Map<String, Integer> pending = stockLedgerService.pendingDeltas();
+            // With MySQL, add useCursorFetch=true to the JDBC URL so the fetch size is honoured server-side
+            try (Stream<Product> products = entityManager
+                    .createQuery("SELECT p FROM Product p ORDER BY p.id", Product.class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+
+                long count = 0;
+                for (Product product : (Iterable<Product>) products::iterator) {
+                    buffered.write(writer.writeValueAsBytes(ProductService.toResponse(product, pending)));
+                    buffered.write('\n');
+                    entityManager.detach(product);
+                    if (++count % fetchSize == 0) {
+                        buffered.flush(); // keep bytes moving to the client between chunks
+                    }
+                }
+                buffered.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Exported {} products", exported);
+        return exported == null ? 0 : exported;
+    }
+}
@@ -0,0 +1,275 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazen.ecommerce.inventory.product.dto.ImportRowError;
+import com.mazen.ecommerce.inventory.product.dto.ProductImportResponse;
+import com.mazen.ecommerce.inventory.product.dto.ProductRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk upsert of a supplier feed (CSV or NDJSON). Records are read one line at a time, validated,
+ * and written in JDBC batches of a single INSERT ... ON DUPLICATE KEY UPDATE on the sku, one short
+ * transaction per batch. This goes around Hibernate on purpose: Product keeps its IDENTITY id (switching
+ * the live auto_increment table to a sequence/table generator would collide with existing ids), and
+ * IDENTITY only blocks batching for entity inserts, not for plain JDBC.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    static final String UPSERT_SQL = "INSERT INTO products " +
+            "(sku, name, description, price, stock_quantity, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE name = VALUES(name), description = VALUES(description), " +
+            "price = VALUES(price), stock_quantity = VALUES(stock_quantity), updated_at = VALUES(updated_at)";
+
+    private static final String CHANGE_SQL = "INSERT INTO catalog_changes (sku, changed_at) VALUES (?, ?)";
+
+    // The feed carries absolute stock counts, which replace any increments still pending on the stock ledger
+    private static final String SUPERSEDE_PENDING_SQL =
+            "UPDATE stock_movements SET applied = TRUE, applied_at = ? WHERE sku = ? AND applied = FALSE";
+
+    // ... and the difference is written down as one applied movement, so the ledger still adds up to the snapshot
+    private static final String MOVEMENT_SQL = "INSERT INTO stock_movements " +
+            "(sku, delta, reason, applied, created_at, applied_at) VALUES (?, ?, ?, TRUE, ?, ?)";
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ProductCache productCache;
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+
+    @Value("${inventory.import.batch-size:500}")
+    private int batchSize;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                ProductCache productCache,
+                                ProductRepository productRepository,
+                                ProductSearchIndex productSearchIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.productCache = productCache;
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    public ProductImportResponse importProducts(InputStream input, Format format) throws IOException {
+        ImportResult result = new ImportResult();
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            String[] csvHeader = null;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && csvHeader == null) {
+                    csvHeader = CsvLine.parse(line).toArray(String[]::new);
+                    continue;
+                }
+
+                result.totalRows++;
+                ProductRequest request;
+                try {
+                    request = format == Format.CSV
+                            ? fromCsv(csvHeader, CsvLine.parse(line))
+                            : objectMapper.readValue(line, ProductRequest.class);
+                } catch (Exception e) {
+                    result.reject(lineNumber, null, "Unreadable record: " + e.getMessage());
+                    continue;
+                }
+
+                Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+                if (!violations.isEmpty()) {
+                    result.reject(lineNumber, request.getSku(), violations.stream()
+                            .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining(", ")));
+                    continue;
+                }
+
+                batch.add(new Row(lineNumber, request));
+                if (batch.size() == batchSize) {
+                    writeBatch(batch, result);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+
+        log.info("Product import finished: {} rows, {} imported, {} failed",
+                result.totalRows, result.imported, result.failed);
+        return ProductImportResponse.builder()
+                .totalRows(result.totalRows)
+                .imported(result.imported)
+                .failed(result.failed)
+                .errors(result.errors)
+                .build();
+    }
+
+    private void writeBatch(List<Row> batch, ImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> upsert(batch));
+            reindex(batch);
+            result.imported += batch.size();
+        } catch (DataAccessException e) {
+            // Something in the batch was rejected by the database: retry row by row to find out which
+            log.warn("Import batch of {} rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+            for (Row row : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> upsert(List.of(row)));
+                    reindex(List.of(row));
+                    result.imported++;
+                } catch (DataAccessException rowError) {
+                    result.reject(row.line(), row.request().getSku(), rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void upsert(List<Row> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> movements = stockMovements(rows, now);
+        jdbcTemplate.batchUpdate(SUPERSEDE_PENDING_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setTimestamp(1, now);
+            ps.setString(2, row.request().getSku());
+        });
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ProductRequest request = row.request();
+            ps.setString(1, request.getSku());
+            ps.setString(2, request.getName());
+            ps.setString(3, request.getDescription());
+            ps.setBigDecimal(4, request.getPrice());
+            ps.setInt(5, request.getStockQuantity());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+        jdbcTemplate.batchUpdate(CHANGE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.request().getSku());
+            ps.setTimestamp(2, now);
+        });
+        if (!movements.isEmpty()) {
+            jdbcTemplate.batchUpdate(MOVEMENT_SQL, movements);
+        }
+        rows.forEach(row -> productCache.invalidate(row.request().getSku()));
+    }
+
+    /**
+     * Locks the products of the batch (in SKU order, like every other stock writer) and works out what each
+     * row changes: ADJUSTMENT from the available stock (snapshot plus pending tail) of an existing product,
+     * INITIAL for a new one. Rows are walked in feed order, so a SKU listed twice adjusts from its first value.
+     */
+    private List<Object[]> stockMovements(List<Row> rows, Timestamp now) {
+        List<String> skus = rows.stream().map(row -> row.request().getSku()).distinct().sorted().toList();
+        String in = String.join(", ", Collections.nCopies(skus.size(), "?"));
+
+        Map<String, Integer> available = new HashMap<>();
+        jdbcTemplate.query("SELECT sku, stock_quantity FROM products WHERE sku IN (" + in + ") ORDER BY sku FOR UPDATE",
+                rs -> { available.put(rs.getString(1), rs.getInt(2)); }, skus.toArray());
+        jdbcTemplate.query("SELECT sku, SUM(delta) FROM stock_movements WHERE applied = FALSE AND sku IN (" + in + ") " +
+                        "GROUP BY sku",
+                rs -> {
+                    int pending = rs.getInt(2);
+                    available.computeIfPresent(rs.getString(1), (sku, stock) -> stock + pending);
+                },
+                skus.toArray());
+
+        List<Object[]> movements = new ArrayList<>();
+        for (Row row : rows) {
+            String sku = row.request().getSku();
+            int stock = row.request().getStockQuantity();
+            Integer before = available.put(sku, stock);
+            int delta = before == null ? stock : stock - before;
+            if (delta != 0) {
+                StockMovementReason reason = before == null ? StockMovementReason.INITIAL : StockMovementReason.ADJUSTMENT;
+                movements.add(new Object[]{sku, delta, reason.name(), now, now});
+            }
+        }
+        return movements;
+    }
+
+    // The upsert bypasses Hibernate, so read the committed rows back (ids included) for the search index
+    private void reindex(List<Row> rows) {
+        productRepository.findBySkuIn(rows.stream().map(row -> row.request().getSku()).collect(Collectors.toSet()))
+                .forEach(productSearchIndex::index);
+    }
+
+    private ProductRequest fromCsv(String[] header, List<String> values) {
+        if (values.size() != header.length) {
+            throw new IllegalArgumentException("expected " + header.length + " columns but got " + values.size());
+        }
+
+        ProductRequest request = new ProductRequest();
+        for (int i = 0; i < header.length; i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            switch (header[i].trim()) {
+                case "sku" -> request.setSku(value);
+                case "name" -> request.setName(value);
+                case "description" -> request.setDescription(value);
+                case "price" -> request.setPrice(value == null ? null : new BigDecimal(value.trim()));
+                case "stockQuantity", "stock_quantity" ->
+                        request.setStockQuantity(value == null ? null : Integer.valueOf(value.trim()));
+                default -> { } // unknown supplier columns are ignored
+            }
+        }
+        return request;
+    }
+
+    private record Row(long line, ProductRequest request) {
+    }
+
+    private static class ImportResult {
+        long totalRows;
+        long imported;
+        long failed;
+        final List<ImportRowError> errors = new ArrayList<>();
+
+        void reject(long line, String sku, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(line, sku, message));
+            }
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package com.mazen.ecommerce.inventory.product;
 
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +20,44 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     boolean existsBySku(String sku);
 
+    // Snapshot plus the pending ledger tail, read in one statement so a concurrent compaction is never counted twice
+    @Query("SELECT CAST(p.stockQuantity + COALESCE((SELECT SUM(m.delta) FROM StockMovement m " +
+            "WHERE m.sku = p.sku AND m.applied = false), 0) AS Integer) FROM Product p WHERE p.sku = :sku")
+    Optional<Integer> findAvailableStockBySku(@Param("sku") String sku);
+
+    // One "WHERE sku IN (...)" query for a whole cart, served by the unique index on sku
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    // Row locks in SKU order, the same order bulk decrements take them in (see StockLedgerService#compact)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.sku IN :skus ORDER BY p.sku")
+    List<Product> lockBySkus(@Param("skus") Collection<String> skus);
+
+    // Keyset pagination on (createdAt, id), newest first: served by idx_product_created_id without OFFSET or COUNT
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findFirstScrollPage(Pageable pageable);
+
+    @Query("SELECT p FROM Product p " +
+            "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findScrollPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    // Check and decrement in one statement: the row lock taken by the UPDATE is the only synchronization,
+    // so concurrent checkouts can never oversell. Returns 0 when the SKU is missing or stock is too low.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = :now " +
+            "WHERE p.sku = :sku AND p.stockQuantity >= :quantity")
+    int decreaseStockIfAvailable(@Param("sku") String sku,
+                                 @Param("quantity") int quantity,
+                                 @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.updatedAt = :now " +
+            "WHERE p.sku = :sku")
+    int increaseStock(@Param("sku") String sku,
+                      @Param("quantity") int quantity,
+                      @Param("now") LocalDateTime now);
+
 }
@@ -0,0 +1,156 @@
+package com.mazen.ecommerce.inventory.product;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over product name and description. Terms are kept in a sorted map so a
+ * query term also matches every indexed term it is a prefix of ("lap" finds "laptop"). Only product
+ * ids and term weights are held here; matching and ranking never touch the database.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final float NAME_WEIGHT = 3f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> weight of the term in that product)
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // product id -> its terms, needed to remove a product's old postings on update/delete
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+
+    public void index(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        tokenize(product.getName()).forEach(term -> terms.merge(term, NAME_WEIGHT, Float::sum));
+        tokenize(product.getDescription()).forEach(term -> terms.merge(term, DESCRIPTION_WEIGHT, Float::sum));
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(product.getId());
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.getId(), weight));
+            documents.put(product.getId(), terms.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the products matching every query term (exactly or as a prefix), best match first
+     */
+    public List<Long> search(String query) {
+        List<String> queryTerms = tokenize(query).distinct().collect(Collectors.toList());
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Long, Float> termScores = score(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // AND semantics: keep only products that also match this term
+                    Map<Long, Float> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Float> entry : termScores.entrySet()) {
+                        Float score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Float>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Weight x inverse document frequency, for the exact term and (discounted) every term it prefixes
+    private Map<Long, Float> score(String queryTerm) {
+        Map<Long, Float> scores = new HashMap<>();
+        int totalDocuments = documents.size();
+        for (Map.Entry<String, Map<Long, Float>> posting : postings.tailMap(queryTerm, true).entrySet()) {
+            String term = posting.getKey();
+            if (!term.startsWith(queryTerm)) {
+                break;
+            }
+            float factor = term.equals(queryTerm) ? 1f : PREFIX_MATCH_FACTOR;
+            float idf = (float) Math.log(1 + (double) totalDocuments / posting.getValue().size());
+            posting.getValue().forEach((id, weight) -> scores.merge(id, weight * idf * factor, Math::max));
+        }
+        return scores;
+    }
+
+    private void removeUnlocked(Long productId) {
+        Set<String> terms = documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    static Stream<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+        return Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty());
+    }
+}
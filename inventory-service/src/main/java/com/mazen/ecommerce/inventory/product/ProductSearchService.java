@@ -0,0 +1,79 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.ProductResponse;
+import com.mazen.ecommerce.inventory.product.dto.ProductSearchResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Search over product name and description. Matching and ranking run against {@link ProductSearchIndex};
+ * the database is only asked for the rows of the requested page, by primary key.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final StockLedgerService stockLedgerService;
+
+    // Walks the catalog with the keyset queries, so building the index never holds a long transaction open
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long started = System.currentTimeMillis();
+        productSearchIndex.clear();
+
+        Pageable limit = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        List<Product> batch = productRepository.findFirstScrollPage(limit);
+        while (!batch.isEmpty()) {
+            batch.forEach(productSearchIndex::index);
+            Product last = batch.get(batch.size() - 1);
+            batch = batch.size() < REBUILD_BATCH_SIZE
+                    ? List.of()
+                    : productRepository.findScrollPageAfter(last.getCreatedAt(), last.getId(), limit);
+        }
+
+        log.info("Product search index built: {} products in {} ms",
+                productSearchIndex.size(), System.currentTimeMillis() - started);
+    }
+
+    public ProductSearchResponse search(String query, int page, int size) {
+        List<Long> ranked = productSearchIndex.search(query);
+
+        int from = (int) Math.min((long) page * size, ranked.size());
+        List<Long> pageIds = ranked.subList(from, Math.min(from + size, ranked.size()));
+
+        // findAllById returns rows in no particular order: put them back in ranking order
+        Map<Long, Product> rows = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<String, Integer> pending = stockLedgerService.pendingDeltas(
+                rows.values().stream().map(Product::getSku).collect(Collectors.toList()));
+        List<ProductResponse> items = pageIds.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .map(product -> ProductService.toResponse(product, pending))
+                .collect(Collectors.toList());
+
+        return ProductSearchResponse.builder()
+                .query(query)
+                .items(items)
+                .page(page)
+                .size(size)
+                .totalMatches(ranked.size())
+                .build();
+    }
+}
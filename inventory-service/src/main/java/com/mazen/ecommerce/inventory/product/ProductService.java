@@ -3,8 +3,9 @@ package com.mazen.ecommerce.inventory.product;
 import com.mazen.ecommerce.inventory.product.ProductRepository;
 import com.mazen.ecommerce.inventory.product.dto.ProductRequest;
 import com.mazen.ecommerce.inventory.product.dto.ProductResponse;
+import com.mazen.ecommerce.inventory.product.dto.ProductScrollResponse;
+import com.mazen.ecommerce.inventory.product.dto.StockLine;
 import com.mazen.ecommerce.inventory.product.dto.UpdateProductRequest;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -14,14 +15,26 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final CatalogChangeService catalogChangeService;
+    private final ProductSearchIndex productSearchIndex;
+    private final StockLedgerService stockLedgerService;
 
 
+    // The product and its INITIAL ledger entry are stored together
+    @Transactional
     public ProductResponse createProduct(ProductRequest request) {
         if (productRepository.existsBySku(request.getSku())) {
             throw new IllegalArgumentException("Product with SKU already exists: " + request.getSku());
@@ -37,40 +50,103 @@ public class ProductService {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        return toResponse(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        if (saved.getStockQuantity() != 0) {
+            stockLedgerService.recordApplied(saved.getSku(), saved.getStockQuantity(), StockMovementReason.INITIAL, null);
+        }
+        productSearchIndex.index(saved);
+        return toResponse(saved, stockLedgerService.pendingDeltas(List.of(saved.getSku())));
     }
 
     public ProductResponse getProductBySku(String sku) {
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new EntityNotFoundException("Product not found with SKU: " + sku));
-        return toResponse(product);
+        return productCache.getProduct(sku)
+                .orElseThrow(() -> new ProductNotFoundException(sku));
+    }
+
+    // SKUs that do not exist are simply left out of the result; stock includes the pending ledger tail
+    public List<ProductResponse> getProductsBySkus(List<String> skus) {
+        LinkedHashSet<String> distinctSkus = new LinkedHashSet<>(skus);
+        Map<String, Integer> pending = stockLedgerService.pendingDeltas(distinctSkus);
+        return productRepository.findBySkuIn(distinctSkus).stream()
+                .map(product -> toResponse(product, pending))
+                .collect(Collectors.toList());
     }
 
     public Page<ProductResponse> getAllProducts(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.findAll(pageable).map(this::toResponse);
+        Page<Product> products = productRepository.findAll(pageable);
+        Map<String, Integer> pending = stockLedgerService.pendingDeltas(skusOf(products.getContent()));
+        return products.map(product -> toResponse(product, pending));
     }
 
+    /**
+     * Cursor-based listing for exports: each page seeks past the last (createdAt, id) seen instead of
+     * skipping rows with OFFSET, so page 10 000 costs the same as page 1, and no total count is computed.
+     */
+    public ProductScrollResponse scrollProducts(String cursor, int size) {
+        // One extra row tells whether another page exists
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Product> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findFirstScrollPage(limit);
+        } else {
+            ProductCursor after = ProductCursor.decode(cursor);
+            products = productRepository.findScrollPageAfter(after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = products.size() > size;
+        List<Product> page = hasMore ? products.subList(0, size) : products;
+        Map<String, Integer> pending = stockLedgerService.pendingDeltas(skusOf(page));
+        return ProductScrollResponse.builder()
+                .items(page.stream().map(product -> toResponse(product, pending)).collect(Collectors.toList()))
+                .nextCursor(hasMore ? ProductCursor.of(page.get(page.size() - 1)).encode() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Transactional
     public ProductResponse updateProduct(String sku, UpdateProductRequest request) {
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new EntityNotFoundException("Product not found with SKU: " + sku));
+        // An absolute stock value replaces everything before it, so fold the pending tail in first
+        if (request.getStockQuantity() != null) {
+            stockLedgerService.compact(sku);
+        }
+        // Locked until commit, so no decrement lands between reading the snapshot and recording the adjustment
+        Product product = productRepository.lockBySkus(List.of(sku)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ProductNotFoundException(sku));
 
         //I made all this if-statements to prevent any null value in the request to overwrite existing values in DB
         if (request.getName() != null) product.setName(request.getName());
         if (request.getDescription() != null) product.setDescription(request.getDescription());
         if (request.getPrice() != null) product.setPrice(request.getPrice());
-        if (request.getStockQuantity() != null) product.setStockQuantity(request.getStockQuantity());
+        if (request.getStockQuantity() != null) {
+            int delta = request.getStockQuantity() - product.getStockQuantity();
+            product.setStockQuantity(request.getStockQuantity());
+            if (delta != 0) {
+                stockLedgerService.recordApplied(sku, delta, StockMovementReason.ADJUSTMENT, null);
+            }
+        }
 
-        return toResponse(productRepository.save(product));
+        // Let shop-service caches know only when catalog fields were touched, not for stock-only updates
+        if (request.getName() != null || request.getDescription() != null || request.getPrice() != null) {
+            catalogChangeService.recordChange(sku);
+        }
+        productCache.invalidate(sku);
+        Product saved = productRepository.save(product);
+        productSearchIndex.index(saved);
+        return toResponse(saved, stockLedgerService.pendingDeltas(List.of(sku)));
     }
 
     public void deleteProduct(String sku) {
         Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new EntityNotFoundException("Product not found with SKU: " + sku));
+                .orElseThrow(() -> new ProductNotFoundException(sku));
         productRepository.delete(product);
+        catalogChangeService.recordChange(sku);
+        productCache.invalidate(sku);
+        productSearchIndex.remove(product.getId());
     }
 
-    private ProductResponse toResponse(Product product) {
+    static ProductResponse toResponse(Product product) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .sku(product.getSku())
@@ -83,33 +159,123 @@ public class ProductService {
                 .build();
     }
 
+    // Available stock is the snapshot plus the pending ledger tail, see StockLedgerService
+    static ProductResponse toResponse(Product product, Map<String, Integer> pending) {
+        ProductResponse response = toResponse(product);
+        response.setStockQuantity(product.getStockQuantity() + pending.getOrDefault(product.getSku(), 0));
+        return response;
+    }
 
+    private static List<String> skusOf(List<Product> products) {
+        return products.stream().map(Product::getSku).collect(Collectors.toList());
+    }
+
+
+    // Advisory check served from the short-lived stock cache; decreaseStock is what actually guards the stock
     public boolean isInStock(String sku, int quantity) {
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new EntityNotFoundException("Product not found: " + sku));
-        return product.getStockQuantity() >= quantity;
+        int stockQuantity = productCache.getStock(sku)
+                .orElseThrow(() -> new ProductNotFoundException(sku));
+        return stockQuantity >= quantity;
     }
 
     @Transactional
-    public void decreaseStock(String sku, int quantity) {
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new EntityNotFoundException("Product not found: " + sku));
+    public void decreaseStock(String sku, int quantity, String reference) {
+        decreaseStock(sku, quantity, reference, null);
+    }
 
-        if (product.getStockQuantity() < quantity) {
-            throw new IllegalStateException("Not enough stock for product: " + sku);
+    // With a requestId the decrement is applied at most once, so a caller that got no response can send it again
+    @Transactional
+    public void decreaseStock(String sku, int quantity, String reference, String requestId) {
+        requirePositive(quantity);
+        if (requestId != null && stockLedgerService.hasRequest(requestId, sku)) {
+            return; // already applied, or revoked by a restock
         }
+        productCache.invalidateStock(sku);
 
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        productRepository.save(product);
+        decrement(sku, quantity, StockMovementReason.SALE, reference, requestId, LocalDateTime.now());
     }
 
+    // Only appends to the ledger: the product row is not locked, the compactor applies the increment later
+    @Transactional
+    public void increaseStock(String sku, int quantity, String reference) {
+        requirePositive(quantity);
+        productCache.invalidateStock(sku);
+
+        if (!productRepository.existsBySku(sku)) {
+            throw new ProductNotFoundException(sku);
+        }
+        stockLedgerService.recordPending(sku, quantity, StockMovementReason.RESTOCK, reference);
+    }
 
+    /**
+     * Decrements every line of a cart in one transaction: if any SKU is missing or short,
+     * the exception rolls back the lines already applied and nothing is reserved.
+     */
     @Transactional
-    public void increaseStock(String sku, int quantity) {
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new EntityNotFoundException("Product not found: " + sku));
+    public void decreaseStock(List<StockLine> lines, StockMovementReason reason, String reference) {
+        LocalDateTime now = LocalDateTime.now();
+        mergeBySku(lines).forEach((sku, quantity) -> {
+            productCache.invalidateStock(sku);
+            decrement(sku, quantity, reason, reference, null, now);
+        });
+    }
 
-        product.setStockQuantity(product.getStockQuantity() + quantity);
-        productRepository.save(product);
+    @Transactional
+    public void increaseStock(List<StockLine> lines, String reference, String requestId) {
+        increaseStock(lines, reference, requestId, null);
+    }
+
+    /**
+     * @param revokedRequestId when set, each line is given back only if the decrement sent with that request id
+     *                         took it (see StockLedgerService#revoke)
+     */
+    @Transactional
+    public void increaseStock(List<StockLine> lines, String reference, String requestId, String revokedRequestId) {
+        // A redelivered restock (shop-service's outbox retries until it sees a response) is applied only once;
+        // keyed by the command, since one cart can legitimately be restocked more than once
+        if (requestId != null && stockLedgerService.hasRequest(requestId)) {
+            return;
+        }
+        mergeBySku(lines).forEach((sku, quantity) -> {
+            productCache.invalidateStock(sku);
+            if (!productRepository.existsBySku(sku)) {
+                throw new ProductNotFoundException(sku);
+            }
+            if (revokedRequestId != null && !stockLedgerService.revoke(revokedRequestId, sku)) {
+                return;
+            }
+            stockLedgerService.recordPending(sku, quantity, StockMovementReason.RESTOCK, reference, requestId);
+        });
+    }
+
+    // Guarded UPDATE on the snapshot; when it falls short, pending increments may still cover it, so apply them and retry once
+    private void decrement(String sku, int quantity, StockMovementReason reason, String reference, String requestId,
+                           LocalDateTime now) {
+        boolean decreased = productRepository.decreaseStockIfAvailable(sku, quantity, now) > 0
+                || (stockLedgerService.compact(sku) && productRepository.decreaseStockIfAvailable(sku, quantity, now) > 0);
+        if (!decreased) {
+            // Nothing was updated: tell a missing product apart from insufficient stock
+            if (!productRepository.existsBySku(sku)) {
+                throw new ProductNotFoundException(sku);
+            }
+            throw new InsufficientStockException(sku);
+        }
+        stockLedgerService.recordApplied(sku, -quantity, reason, reference, requestId);
+    }
+
+    // One UPDATE per SKU, applied in SKU order so concurrent carts always lock rows in the same order
+    static SortedMap<String, Integer> mergeBySku(List<StockLine> lines) {
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        for (StockLine line : lines) {
+            requirePositive(line.getQuantity());
+            quantities.merge(line.getSku(), line.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
     }
 }
@@ -0,0 +1,43 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.ReservationKeysRequest;
+import com.mazen.ecommerce.inventory.product.dto.ReservationResponse;
+import com.mazen.ecommerce.inventory.product.dto.ReserveStockRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/inventory/reservations")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@Valid @RequestBody ReserveStockRequest request) {
+        return ResponseEntity.ok(reservationService.reserve(request));
+    }
+
+    // Batched, idempotent release: unknown, released, expired and confirmed keys are skipped
+    @PostMapping("/release")
+    public ResponseEntity<Integer> releaseAll(@Valid @RequestBody ReservationKeysRequest request) {
+        return ResponseEntity.ok(reservationService.releaseAll(request.getReservationKeys()));
+    }
+
+    @GetMapping("/{reservationKey}")
+    public ResponseEntity<ReservationResponse> getReservation(@PathVariable String reservationKey) {
+        return ResponseEntity.ok(reservationService.getReservation(reservationKey));
+    }
+
+    @PostMapping("/{reservationKey}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable String reservationKey) {
+        return ResponseEntity.ok(reservationService.confirm(reservationKey));
+    }
+
+    @PostMapping("/{reservationKey}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable String reservationKey) {
+        return ResponseEntity.ok(reservationService.release(reservationKey));
+    }
+}
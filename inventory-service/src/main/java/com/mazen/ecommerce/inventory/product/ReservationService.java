@@ -0,0 +1,211 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.ReservationResponse;
+import com.mazen.ecommerce.inventory.product.dto.ReserveStockRequest;
+import com.mazen.ecommerce.inventory.product.dto.StockLine;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Holds stock for a checkout for a limited time. Reserving decrements Product.stockQuantity right away
+ * (so the units cannot be sold twice), confirming makes it final, and releasing or expiring returns the
+ * units. Every state change is a conditional UPDATE on the reservation status, so no long DB transaction
+ * or row lock spans the checkout.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationService {
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductCache productCache;
+    private final StockLedgerService stockLedgerService;
+
+    @Value("${inventory.reservation.ttl:10m}")
+    private Duration defaultTtl;
+
+    @Value("${inventory.reservation.max-ttl:1h}")
+    private Duration maxTtl;
+
+    @Transactional
+    public ReservationResponse reserve(ReserveStockRequest request) {
+        String key = request.getReservationKey();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<StockReservation> existing = reservationRepository.findByReservationKeyOrderBySku(key);
+        if (!existing.isEmpty()) {
+            boolean live = isLive(existing, now);
+            boolean sameLines = linesOf(existing).equals(ProductService.mergeBySku(request.getLines()));
+            // Same key again (client retry): hand back the hold instead of reserving twice, but only while it holds
+            if (live && sameLines) {
+                return toResponse(key, existing);
+            }
+            if (existing.get(0).getStatus() == ReservationStatus.CONFIRMED) {
+                throw new ReservationStateException("Reservation " + key + " is already confirmed for other lines");
+            }
+            // Released, lapsed or held for other lines (the cart changed): its units go back and the request is held anew
+            ReservationStatus superseded = live ? ReservationStatus.RELEASED : ReservationStatus.EXPIRED;
+            existing.forEach(r -> returnToStock(r, superseded, now));
+            reservationRepository.deleteByReservationKey(key);
+        }
+
+        // All-or-nothing decrement, throws (and rolls back) when any SKU is missing or short
+        productService.decreaseStock(request.getLines(), StockMovementReason.RESERVATION, key);
+
+        LocalDateTime expiresAt = now.plus(ttlOf(request));
+        List<StockReservation> reservations = ProductService.mergeBySku(request.getLines()).entrySet().stream()
+                .map(line -> StockReservation.builder()
+                        .reservationKey(key)
+                        .sku(line.getKey())
+                        .quantity(line.getValue())
+                        .status(ReservationStatus.HELD)
+                        .expiresAt(expiresAt)
+                        .build())
+                .collect(Collectors.toList());
+
+        return toResponse(key, reservationRepository.saveAll(reservations));
+    }
+
+    public ReservationResponse getReservation(String key) {
+        return toResponse(key, findReservation(key));
+    }
+
+    @Transactional
+    public ReservationResponse confirm(String key) {
+        List<StockReservation> reservations = findReservation(key);
+        if (reservations.stream().allMatch(r -> r.getStatus() == ReservationStatus.CONFIRMED)) {
+            return toResponse(key, reservations);
+        }
+
+        // Either every line is still held and unexpired, or the confirm fails as a whole
+        int confirmed = reservationRepository.transitionUnexpired(
+                key, ReservationStatus.HELD, ReservationStatus.CONFIRMED, LocalDateTime.now());
+        if (confirmed != reservations.size()) {
+            throw new ReservationStateException("Reservation " + key + " has expired or was released");
+        }
+        return toResponse(key, reservationRepository.findByReservationKeyOrderBySku(key));
+    }
+
+    @Transactional
+    public ReservationResponse release(String key) {
+        List<StockReservation> reservations = findReservation(key);
+        if (reservations.stream().anyMatch(r -> r.getStatus() == ReservationStatus.CONFIRMED)) {
+            throw new ReservationStateException("Reservation " + key + " is already confirmed");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        reservations.forEach(r -> returnToStock(r, ReservationStatus.RELEASED, now));
+        return toResponse(key, reservationRepository.findByReservationKeyOrderBySku(key));
+    }
+
+    /**
+     * Releases many holds in one transaction, for callers that queue releases and deliver them in batches.
+     * Keys that are unknown, already released or expired, or confirmed have nothing left to give back and
+     * are skipped, so delivering the same batch twice is harmless.
+     *
+     * @return the number of reservations that were actually released
+     */
+    @Transactional
+    public int releaseAll(List<String> keys) {
+        LocalDateTime now = LocalDateTime.now();
+        int released = 0;
+        for (String key : new TreeSet<>(keys)) {
+            List<StockReservation> reservations = reservationRepository.findByReservationKeyOrderBySku(key);
+            if (reservations.stream().anyMatch(r -> r.getStatus() == ReservationStatus.CONFIRMED)) {
+                log.warn("Reservation {} is already confirmed, not releasing it", key);
+                continue;
+            }
+            if (reservations.stream().anyMatch(r -> r.getStatus() == ReservationStatus.HELD)) {
+                reservations.forEach(r -> returnToStock(r, ReservationStatus.RELEASED, now));
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Returns one batch of expired holds to stock.
+     *
+     * @return the number of expired reservations found, less than batchSize when none are left
+     */
+    @Transactional
+    public int expireBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> expired = reservationRepository.findExpired(
+                ReservationStatus.HELD, now, PageRequest.of(0, batchSize));
+
+        expired.forEach(r -> returnToStock(r, ReservationStatus.EXPIRED, now));
+        return expired.size();
+    }
+
+    // Only the caller that wins the HELD -> to transition gives the units back, through the stock ledger
+    private void returnToStock(StockReservation reservation, ReservationStatus to, LocalDateTime now) {
+        if (reservationRepository.transition(reservation.getId(), ReservationStatus.HELD, to, now) == 0) {
+            return;
+        }
+        productCache.invalidateStock(reservation.getSku());
+        if (!productRepository.existsBySku(reservation.getSku())) {
+            log.warn("Product {} no longer exists, {} reserved units were dropped",
+                    reservation.getSku(), reservation.getQuantity());
+            return;
+        }
+        stockLedgerService.recordPending(reservation.getSku(), reservation.getQuantity(),
+                to == ReservationStatus.EXPIRED
+                        ? StockMovementReason.RESERVATION_EXPIRED
+                        : StockMovementReason.RESERVATION_RELEASED,
+                reservation.getReservationKey());
+    }
+
+    // All lines of a reservation move together, so the first one speaks for the whole hold
+    private Map<String, Integer> linesOf(List<StockReservation> reservations) {
+        return reservations.stream()
+                .collect(Collectors.toMap(StockReservation::getSku, StockReservation::getQuantity, Integer::sum));
+    }
+
+    private boolean isLive(List<StockReservation> reservations, LocalDateTime now) {
+        StockReservation first = reservations.get(0);
+        return first.getStatus() == ReservationStatus.CONFIRMED
+                || (first.getStatus() == ReservationStatus.HELD && !first.getExpiresAt().isBefore(now));
+    }
+
+    private List<StockReservation> findReservation(String key) {
+        List<StockReservation> reservations = reservationRepository.findByReservationKeyOrderBySku(key);
+        if (reservations.isEmpty()) {
+            throw new EntityNotFoundException("Reservation not found: " + key);
+        }
+        return reservations;
+    }
+
+    private Duration ttlOf(ReserveStockRequest request) {
+        if (request.getTtlSeconds() == null) {
+            return defaultTtl;
+        }
+        Duration requested = Duration.ofSeconds(request.getTtlSeconds());
+        return requested.compareTo(maxTtl) > 0 ? maxTtl : requested;
+    }
+
+    private ReservationResponse toResponse(String key, List<StockReservation> reservations) {
+        return ReservationResponse.builder()
+                .reservationKey(key)
+                .status(reservations.get(0).getStatus()) // all lines of a reservation move together
+                .expiresAt(reservations.get(0).getExpiresAt())
+                .lines(reservations.stream()
+                        .map(r -> new StockLine(r.getSku(), r.getQuantity()))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
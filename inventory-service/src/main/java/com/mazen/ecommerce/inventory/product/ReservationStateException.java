@@ -0,0 +1,11 @@
+package com.mazen.ecommerce.inventory.product;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReservationStateException extends IllegalStateException {
+    public ReservationStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.mazen.ecommerce.inventory.product;
+
+public enum ReservationStatus {
+    HELD,       // stock decremented, waiting for confirm or release
+    CONFIRMED,  // order paid, the units are sold for good
+    RELEASED,   // released by the caller, units returned to stock
+    EXPIRED     // not confirmed in time, units returned to stock by the sweeper
+}
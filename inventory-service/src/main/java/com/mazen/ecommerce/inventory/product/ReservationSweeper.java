@@ -0,0 +1,35 @@
+package com.mazen.ecommerce.inventory.product;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Returns expired reservations to stock in small batches, one short transaction per batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationSweeper {
+
+    private final ReservationService reservationService;
+
+    @Value("${inventory.reservation.sweep-batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:30000}")
+    public void releaseExpiredReservations() {
+        int total = 0;
+        int swept;
+        do {
+            swept = reservationService.expireBatch(batchSize);
+            total += swept;
+        } while (swept == batchSize);
+
+        if (total > 0) {
+            log.info("Returned {} expired stock reservations to inventory", total);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mazen.ecommerce.inventory.product;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves pending stock movements into the product snapshots in small batches, one short transaction per batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedgerCompactor {
+
+    private final StockLedgerService stockLedgerService;
+
+    @Value("${inventory.stock-ledger.compaction-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${inventory.stock-ledger.compaction-interval-ms:5000}")
+    public void compactPendingMovements() {
+        int total = 0;
+        int applied;
+        try {
+            do {
+                applied = stockLedgerService.compactBatch(batchSize);
+                total += applied;
+            } while (applied == batchSize);
+        } catch (IllegalStateException e) {
+            log.debug("Stock ledger compaction interrupted: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            log.debug("Compacted {} stock movements into product snapshots", total);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.StockMovementResponse;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only history of every stock change. Available stock is always
+ * Product.stockQuantity (the snapshot) plus the sum of the pending movements (the tail):
+ * increments only insert a pending row, so restocks and released reservations never wait on
+ * the product row lock, and compaction moves the tail into the snapshot without changing the sum.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLedgerService {
+
+    private final StockMovementRepository movementRepository;
+    private final ProductRepository productRepository;
+
+    // For changes already applied to the snapshot by the caller, in the same transaction
+    public void recordApplied(String sku, int delta, StockMovementReason reason, String reference) {
+        recordApplied(sku, delta, reason, reference, null);
+    }
+
+    public void recordApplied(String sku, int delta, StockMovementReason reason, String reference, String requestId) {
+        save(sku, delta, reason, reference, requestId, true);
+    }
+
+    // For increments: the snapshot is left alone until the next compaction
+    public void recordPending(String sku, int delta, StockMovementReason reason, String reference) {
+        recordPending(sku, delta, reason, reference, null);
+    }
+
+    public void recordPending(String sku, int delta, StockMovementReason reason, String reference, String requestId) {
+        save(sku, delta, reason, reference, requestId, false);
+    }
+
+    public boolean hasRequest(String requestId) {
+        return movementRepository.existsByRequestId(requestId);
+    }
+
+    public boolean hasRequest(String requestId, String sku) {
+        return movementRepository.findByRequestIdAndSku(requestId, sku).isPresent();
+    }
+
+    /**
+     * Calls off the decrement of one SKU sent with this request id. The unique (requestId, sku) constraint makes
+     * this and the decrement mutually exclusive: whichever commits second fails and is retried by its caller.
+     *
+     * @return true when the decrement was applied and its units should be given back; otherwise it is marked
+     * REVOKED, so it does nothing if it still arrives
+     */
+    public boolean revoke(String requestId, String sku) {
+        return movementRepository.findByRequestIdAndSku(requestId, sku)
+                .map(movement -> movement.getReason() == StockMovementReason.SALE)
+                .orElseGet(() -> {
+                    save(sku, 0, StockMovementReason.REVOKED, null, requestId, true);
+                    return false;
+                });
+    }
+
+    public Map<String, Integer> pendingDeltas(Collection<String> skus) {
+        if (skus.isEmpty()) {
+            return Map.of();
+        }
+        return toDeltas(movementRepository.sumPendingBySku(skus));
+    }
+
+    // Every SKU with a pending tail, for reads that walk the whole catalog
+    public Map<String, Integer> pendingDeltas() {
+        return toDeltas(movementRepository.sumPending());
+    }
+
+    public Page<StockMovementResponse> getMovements(String sku, int page, int size) {
+        return movementRepository.findBySkuOrderByIdDesc(sku, PageRequest.of(page, size))
+                .map(StockLedgerService::toResponse);
+    }
+
+    /**
+     * Folds the oldest pending movements into the product snapshots, one UPDATE per SKU.
+     *
+     * @return the number of movements applied, less than batchSize when the tail is drained
+     */
+    @Transactional
+    public int compactBatch(int batchSize) {
+        List<StockMovement> pending = movementRepository.findByAppliedFalseOrderByIdAsc(PageRequest.of(0, batchSize));
+        apply(pending);
+        return pending.size();
+    }
+
+    /**
+     * Folds the pending movements of one SKU into its snapshot, e.g. right before a decrement that the
+     * snapshot alone cannot cover or an absolute stock overwrite. Runs inside the caller's transaction
+     * (a whole cart), so it never fails on a concurrent compaction: the product row is locked first, which
+     * waits out any compaction of the SKU, and the pending rows are then read with a lock of their own.
+     *
+     * @return true when anything was applied
+     */
+    @Transactional
+    public boolean compact(String sku) {
+        productRepository.lockBySkus(List.of(sku));
+        List<StockMovement> pending = movementRepository.lockPendingBySku(sku);
+        apply(pending);
+        return !pending.isEmpty();
+    }
+
+    private void apply(List<StockMovement> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // SKU order, so concurrent compactions and bulk decrements lock product rows in the same order
+        SortedMap<String, Integer> deltas = new TreeMap<>();
+        pending.forEach(movement -> deltas.merge(movement.getSku(), movement.getDelta(), Integer::sum));
+        productRepository.lockBySkus(deltas.keySet());
+
+        LocalDateTime now = LocalDateTime.now();
+        int marked = movementRepository.markApplied(
+                pending.stream().map(StockMovement::getId).collect(Collectors.toList()), now);
+        if (marked != pending.size()) {
+            // Only compactBatch can get here (its rows were read before the product locks): another compaction
+            // applied some of them first, so roll back and let the next run pick up the rest
+            throw new IllegalStateException("Stock movements were compacted concurrently, retrying later");
+        }
+
+        deltas.forEach((sku, delta) -> {
+            if (productRepository.increaseStock(sku, delta, now) == 0) {
+                log.warn("Product {} no longer exists, {} pending units were dropped", sku, delta);
+            }
+        });
+    }
+
+    private static Map<String, Integer> toDeltas(List<Object[]> rows) {
+        Map<String, Integer> deltas = new HashMap<>();
+        for (Object[] row : rows) {
+            deltas.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        return deltas;
+    }
+
+    private void save(String sku, int delta, StockMovementReason reason, String reference, String requestId,
+                      boolean applied) {
+        movementRepository.save(StockMovement.builder()
+                .sku(sku)
+                .delta(delta)
+                .reason(reason)
+                .reference(reference)
+                .requestId(requestId)
+                .applied(applied)
+                .appliedAt(applied ? LocalDateTime.now() : null)
+                .build());
+    }
+
+    private static StockMovementResponse toResponse(StockMovement movement) {
+        return StockMovementResponse.builder()
+                .id(movement.getId())
+                .sku(movement.getSku())
+                .delta(movement.getDelta())
+                .reason(movement.getReason())
+                .reference(movement.getReference())
+                .applied(movement.isApplied())
+                .createdAt(movement.getCreatedAt())
+                .appliedAt(movement.getAppliedAt())
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.mazen.ecommerce.inventory.product;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only stock ledger. Decrements are applied to Product.stockQuantity in the same
+ * transaction they are recorded in; increments are only inserted here (applied = false) and folded into
+ * the snapshot later by {@link StockLedgerService#compactBatch(int)}.
+ */
+@Entity
+@Table(name = "stock_movements",
+        indexes = {
+                @Index(name = "idx_stock_movement_sku_applied", columnList = "sku, applied"),
+                @Index(name = "idx_stock_movement_applied_id", columnList = "applied, id"),
+                @Index(name = "idx_stock_movement_reference", columnList = "reference")
+        },
+        // A restock command is recorded at most once per SKU, even when two redeliveries race
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_movement_request_sku", columnNames = {"requestId", "sku"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String sku;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private StockMovementReason reason;
+
+    // Order, cart or reservation key the movement belongs to, when the caller sent one
+    @Column(length = 100)
+    private String reference;
+
+    // Id of the restock command that produced the movement, when the caller sent one
+    @Column(length = 100)
+    private String requestId;
+
+    @Column(nullable = false)
+    private boolean applied;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime appliedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
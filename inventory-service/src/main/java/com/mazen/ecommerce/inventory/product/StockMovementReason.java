@@ -0,0 +1,12 @@
+package com.mazen.ecommerce.inventory.product;
+
+public enum StockMovementReason {
+    INITIAL,               // stock the product was created with
+    SALE,                  // decrement by an order (single or bulk decrease)
+    RESTOCK,               // increment through the increase endpoints, incl. rolled back orders
+    RESERVATION,           // units held by a reservation
+    RESERVATION_RELEASED,  // held units given back by the caller
+    RESERVATION_EXPIRED,   // held units given back by the sweeper
+    ADJUSTMENT,            // stock overwritten through updateProduct or a product import
+    REVOKED                // no stock moved: marks a decrement called off before it arrived
+}
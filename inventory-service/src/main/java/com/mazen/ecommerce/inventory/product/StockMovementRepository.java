@@ -0,0 +1,49 @@
+package com.mazen.ecommerce.inventory.product;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    Page<StockMovement> findBySkuOrderByIdDesc(String sku, Pageable pageable);
+
+    boolean existsByRequestId(String requestId);
+
+    Optional<StockMovement> findByRequestIdAndSku(String requestId, String sku);
+
+    // Oldest pending movements first, served by idx_stock_movement_applied_id
+    List<StockMovement> findByAppliedFalseOrderByIdAsc(Pageable pageable);
+
+    // Locking read, so it sees what a compaction that held the product row before us has already applied
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM StockMovement m WHERE m.sku = :sku AND m.applied = false ORDER BY m.id")
+    List<StockMovement> lockPendingBySku(@Param("sku") String sku);
+
+    // Pending tail per SKU, as Object[] {sku, sum of deltas}
+    @Query("SELECT m.sku, SUM(m.delta) FROM StockMovement m " +
+            "WHERE m.sku IN :skus AND m.applied = false GROUP BY m.sku")
+    List<Object[]> sumPendingBySku(@Param("skus") Collection<String> skus);
+
+    // The whole pending tail, which the compactor keeps short, as Object[] {sku, sum of deltas}
+    @Query("SELECT m.sku, SUM(m.delta) FROM StockMovement m WHERE m.applied = false GROUP BY m.sku")
+    List<Object[]> sumPending();
+
+    // Only rows still pending are marked, so two compactors can never apply the same movement twice
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockMovement m SET m.applied = true, m.appliedAt = :now " +
+            "WHERE m.id IN :ids AND m.applied = false")
+    int markApplied(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
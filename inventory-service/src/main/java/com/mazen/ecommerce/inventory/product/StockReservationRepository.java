@@ -0,0 +1,44 @@
+package com.mazen.ecommerce.inventory.product;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByReservationKeyOrderBySku(String reservationKey);
+
+    @Query("SELECT r FROM StockReservation r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("status") ReservationStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    // Compare-and-set on the status: only the caller that moves the row out of HELD may touch the stock,
+    // so a release racing the sweeper (or a confirm) can never return the same units twice
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :to, r.updatedAt = :now " +
+            "WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") ReservationStatus from,
+                   @Param("to") ReservationStatus to,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :to, r.updatedAt = :now " +
+            "WHERE r.reservationKey = :key AND r.status = :from AND r.expiresAt >= :now")
+    int transitionUnexpired(@Param("key") String reservationKey,
+                            @Param("from") ReservationStatus from,
+                            @Param("to") ReservationStatus to,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM StockReservation r WHERE r.reservationKey = :key")
+    int deleteByReservationKey(@Param("key") String reservationKey);
+}
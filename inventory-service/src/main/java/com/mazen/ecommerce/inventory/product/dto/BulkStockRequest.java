@@ -0,0 +1,33 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStockRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid StockLine> lines;
+
+    // Order or cart the change belongs to, kept on the stock ledger entries
+    @Size(max = 100)
+    private String reference;
+
+    // Unique per restock command (e.g. the caller's outbox message id): a redelivery with the same id is applied once
+    @Size(max = 100)
+    private String requestId;
+
+    // Request id of the decrements this restock undoes: only what they took is given back, and one that has
+    // not arrived yet is turned away when it does (the caller could not tell whether it went through)
+    @Size(max = 100)
+    private String revokedRequestId;
+}
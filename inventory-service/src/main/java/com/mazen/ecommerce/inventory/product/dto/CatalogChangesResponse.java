@@ -0,0 +1,14 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class CatalogChangesResponse {
+    private long lastChangeId; // pass back as "after" on the next poll
+    private List<String> skus; // SKUs whose catalog fields changed (or were deleted) after the given id
+    private boolean hasMore;   // the limit was hit, poll again from lastChangeId
+}
@@ -0,0 +1,14 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowError {
+    private long line;
+    private String sku;
+    private String message;
+}
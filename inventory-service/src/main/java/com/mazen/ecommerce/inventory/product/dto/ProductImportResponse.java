@@ -0,0 +1,15 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class ProductImportResponse {
+    private long totalRows;
+    private long imported;            // inserted or updated
+    private long failed;
+    private List<ImportRowError> errors; // capped, "failed" has the full count
+}
@@ -0,0 +1,14 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class ProductScrollResponse {
+    private List<ProductResponse> items;
+    private String nextCursor; // null on the last page
+    private boolean hasMore;
+}
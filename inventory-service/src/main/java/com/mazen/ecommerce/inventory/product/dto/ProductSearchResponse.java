@@ -0,0 +1,16 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class ProductSearchResponse {
+    private String query;
+    private List<ProductResponse> items; // best match first
+    private int page;
+    private int size;
+    private long totalMatches;
+}
@@ -0,0 +1,17 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import com.mazen.ecommerce.inventory.product.ReservationStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder
+@Data
+public class ReservationResponse {
+    private String reservationKey;
+    private ReservationStatus status;
+    private LocalDateTime expiresAt;
+    private List<StockLine> lines;
+}
@@ -0,0 +1,29 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockRequest {
+
+    @NotBlank
+    @Size(max = 100)
+    private String reservationKey; // caller reference, e.g. "cart-42"; reusing it returns the existing hold
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid StockLine> lines;
+
+    @Min(1)
+    private Long ttlSeconds; // optional, defaults to inventory.reservation.ttl
+}
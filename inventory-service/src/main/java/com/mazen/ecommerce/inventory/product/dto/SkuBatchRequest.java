@@ -0,0 +1,20 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkuBatchRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<@NotBlank String> skus;
+}
@@ -0,0 +1,21 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLine {
+
+    @NotBlank
+    private String sku;
+
+    @NotNull
+    @Min(1)
+    private Integer quantity;
+}
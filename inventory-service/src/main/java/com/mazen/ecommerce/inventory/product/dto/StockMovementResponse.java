@@ -0,0 +1,20 @@
+package com.mazen.ecommerce.inventory.product.dto;
+
+import com.mazen.ecommerce.inventory.product.StockMovementReason;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+public class StockMovementResponse {
+    private Long id;
+    private String sku;
+    private Integer delta;
+    private StockMovementReason reason;
+    private String reference;
+    private boolean applied; // false while still in the pending tail
+    private LocalDateTime createdAt;
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,65 @@
+package com.mazen.ecommerce.inventory.product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "inventory.product-cache.stock-ttl=1h")
+@Import({ProductService.class, ProductCache.class, CatalogChangeService.class, ProductSearchIndex.class,
+        StockLedgerService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductCacheTests {
+
+    private static final String SKU = "CACHED-1";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+        productRepository.save(Product.builder()
+                .sku(SKU)
+                .name("Cached item")
+                .price(BigDecimal.TEN)
+                .stockQuantity(10)
+                .build());
+    }
+
+    @Test
+    void repeatedReadsAreServedFromCacheAndStockWritesInvalidate() {
+        assertEquals(10, productService.getProductBySku(SKU).getStockQuantity());
+        assertEquals(10, productService.getProductBySku(SKU).getStockQuantity());
+        assertTrue(hits("inventory.product-catalog") >= 1);
+
+        productService.decreaseStock(SKU, 3, null);
+
+        assertEquals(7, productService.getProductBySku(SKU).getStockQuantity());
+        assertTrue(productService.isInStock(SKU, 7));
+        assertFalse(productService.isInStock(SKU, 8));
+    }
+
+    private double hits(String cacheName) {
+        return meterRegistry.get("cache.gets").tag("cache", cacheName).tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,55 @@
+package com.mazen.ecommerce.inventory.product;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ProductController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class ProductControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ProductService productService;
+
+    @MockitoBean
+    private CatalogChangeService catalogChangeService;
+
+    @MockitoBean
+    private ProductExportService productExportService;
+
+    @MockitoBean
+    private ProductImportService productImportService;
+
+    @MockitoBean
+    private ProductSearchService productSearchService;
+
+    @MockitoBean
+    private StockLedgerService stockLedgerService;
+
+    @Test
+    void unknownSkuIsNotFound() throws Exception {
+        when(productService.getProductBySku("MISSING")).thenThrow(new ProductNotFoundException("MISSING"));
+        doThrow(new ProductNotFoundException("MISSING"))
+                .when(productService).decreaseStock(anyList(), any(), any());
+
+        mockMvc.perform(get("/api/inventory/MISSING"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/inventory/bulk/decrease")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lines\":[{\"sku\":\"MISSING\",\"quantity\":1}],\"reference\":\"cart-1\"}"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,71 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "inventory.export.fetch-size=7")
+@Import({ProductExportService.class, StockLedgerService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductExportTests {
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+        for (int i = 0; i < 20; i++) {
+            productRepository.save(Product.builder()
+                    .sku("EXPORT-" + i)
+                    .name("Item " + i)
+                    .price(BigDecimal.valueOf(i))
+                    .stockQuantity(i)
+                    .build());
+        }
+    }
+
+    @Test
+    void writesOneJsonProductPerLine() throws Exception {
+        stockLedgerService.recordPending("EXPORT-3", 100, StockMovementReason.RESTOCK, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(20, productExportService.exportNdjson(out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(20, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode product = objectMapper.readTree(lines[i]);
+            assertEquals("EXPORT-" + i, product.get("sku").asText());
+            assertEquals(i == 3 ? 103 : i, product.get("stockQuantity").asInt()); // pending restock included
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.ProductImportResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none", // keep the MySQL-compatible URL below
+        "spring.datasource.url=jdbc:h2:mem:import;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "inventory.import.batch-size=2"
+})
+@Import({ProductImportService.class, ProductCache.class, ProductSearchIndex.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, JdbcTemplateAutoConfiguration.class,
+        ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImportTests {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+        productRepository.save(Product.builder()
+                .sku("EXISTING")
+                .name("Old name")
+                .price(BigDecimal.ONE)
+                .stockQuantity(1)
+                .build());
+    }
+
+    @Test
+    void csvImportUpsertsValidRowsAndReportsInvalidOnes() throws Exception {
+        String csv = """
+                sku,name,description,price,stockQuantity
+                NEW-1,"Desk, oak",Solid wood,120.50,4
+                EXISTING,New name,,9.99,30
+                BAD-PRICE,Broken,,abc,1
+                ,No sku,,1.00,1
+                NEW-2,"Lamp \"\"LED\"\"",,15,0
+                """;
+
+        ProductImportResponse response = productImportService.importProducts(stream(csv), ProductImportService.Format.CSV);
+
+        assertEquals(5, response.getTotalRows());
+        assertEquals(3, response.getImported());
+        assertEquals(2, response.getFailed());
+        assertEquals(4, response.getErrors().get(0).getLine());
+        assertEquals(5, response.getErrors().get(1).getLine());
+
+        Product existing = productRepository.findBySku("EXISTING").orElseThrow();
+        assertEquals("New name", existing.getName());
+        assertEquals(30, existing.getStockQuantity());
+        assertEquals("Desk, oak", productRepository.findBySku("NEW-1").orElseThrow().getName());
+        assertEquals("Lamp \"LED\"", productRepository.findBySku("NEW-2").orElseThrow().getName());
+        assertEquals(3, productRepository.count());
+    }
+
+    @Test
+    void ndjsonImportIsolatesRowsTheDatabaseRejects() throws Exception {
+        String ndjson = """
+                {"sku":"J-1","name":"One","price":1,"stockQuantity":1}
+                {"sku":"J-2","name":"%s","price":2,"stockQuantity":2}
+                {"sku":"J-3","name":"Three","price":3,"stockQuantity":3}
+                """.formatted("x".repeat(300)); // longer than the name column
+
+        ProductImportResponse response = productImportService.importProducts(stream(ndjson), ProductImportService.Format.NDJSON);
+
+        assertEquals(2, response.getImported());
+        assertEquals(1, response.getFailed());
+        assertEquals("J-2", response.getErrors().get(0).getSku());
+        assertTrue(productRepository.findBySku("J-1").isPresent());
+        assertTrue(productRepository.findBySku("J-3").isPresent());
+    }
+
+    @Test
+    void importedStockIsRecordedOnTheLedger() throws Exception {
+        movementRepository.save(StockMovement.builder()
+                .sku("EXISTING")
+                .delta(4)
+                .reason(StockMovementReason.RESTOCK)
+                .applied(false)
+                .build());
+        String ndjson = """
+                {"sku":"EXISTING","name":"Existing","price":1,"stockQuantity":30}
+                {"sku":"NEW-1","name":"New","price":1,"stockQuantity":7}
+                """;
+
+        productImportService.importProducts(stream(ndjson), ProductImportService.Format.NDJSON);
+
+        // 1 on the snapshot plus 4 pending were available, the feed sets 30
+        List<StockMovement> existing = movementRepository.findBySkuOrderByIdDesc("EXISTING", Pageable.unpaged()).getContent();
+        assertEquals(StockMovementReason.ADJUSTMENT, existing.get(0).getReason());
+        assertEquals(25, existing.get(0).getDelta());
+        assertTrue(existing.stream().allMatch(StockMovement::isApplied));
+        assertEquals(30, existing.stream().mapToInt(StockMovement::getDelta).sum() + 1);
+
+        StockMovement created = movementRepository.findBySkuOrderByIdDesc("NEW-1", Pageable.unpaged()).getContent().get(0);
+        assertEquals(StockMovementReason.INITIAL, created.getReason());
+        assertEquals(7, created.getDelta());
+    }
+
+    private ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,78 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.ProductResponse;
+import com.mazen.ecommerce.inventory.product.dto.ProductScrollResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ProductService.class, ProductCache.class, CatalogChangeService.class, ProductSearchIndex.class,
+        StockLedgerService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductScrollTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        for (int i = 0; i < 25; i++) {
+            productRepository.save(Product.builder()
+                    .sku("SCROLL-" + i)
+                    .name("Item " + i)
+                    .price(BigDecimal.ONE)
+                    .stockQuantity(1)
+                    .build());
+        }
+
+        // Several products created in the same instant: the id breaks the tie
+        LocalDateTime sameInstant = LocalDateTime.now().withNano(0);
+        productRepository.findAll().stream().limit(10).forEach(product -> {
+            product.setCreatedAt(sameInstant);
+            productRepository.save(product);
+        });
+    }
+
+    @Test
+    void scrollVisitsEveryProductOnceNewestFirst() {
+        List<ProductResponse> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductScrollResponse page = productService.scrollProducts(cursor, 7);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            assertEquals(page.isHasMore(), cursor != null);
+        } while (cursor != null);
+
+        assertEquals(25, seen.size());
+        assertEquals(25, seen.stream().map(ProductResponse::getSku).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            ProductResponse previous = seen.get(i - 1);
+            ProductResponse current = seen.get(i);
+            int byTime = current.getCreatedAt().compareTo(previous.getCreatedAt());
+            assertTrue(byTime < 0 || (byTime == 0 && current.getId() < previous.getId()));
+        }
+    }
+
+    @Test
+    void rejectsGarbageCursor() {
+        assertThrows(InvalidCursorException.class, () -> productService.scrollProducts("not-a-cursor", 10));
+    }
+}
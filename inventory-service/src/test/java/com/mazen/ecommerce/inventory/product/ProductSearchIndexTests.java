@@ -0,0 +1,66 @@
+package com.mazen.ecommerce.inventory.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTests {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.index(product(1L, "Gaming Laptop 15\"", "Fast laptop with RGB keyboard"));
+        index.index(product(2L, "Laptop Sleeve", "Neoprene sleeve"));
+        index.index(product(3L, "Mechanical Keyboard", "Works with any laptop"));
+        index.index(product(4L, "USB-C Cable", null));
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        List<Long> results = index.search("laptop");
+
+        assertEquals(List.of(1L, 2L, 3L), results);
+    }
+
+    @Test
+    void matchesPrefixesCaseInsensitively() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("LAP"));
+        assertEquals(List.of(4L), index.search("usb"));
+        assertEquals(List.of(4L), index.search("c cab"));
+    }
+
+    @Test
+    void requiresEveryQueryTerm() {
+        assertEquals(List.of(1L, 3L), index.search("keyboard laptop"));
+        assertTrue(index.search("keyboard sleeve").isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+    }
+
+    @Test
+    void reindexingReplacesOldTermsAndRemoveDropsProduct() {
+        index.index(product(2L, "Tablet Sleeve", "Neoprene sleeve"));
+        assertEquals(List.of(1L, 3L), index.search("laptop"));
+        assertEquals(List.of(2L), index.search("tablet"));
+
+        index.remove(2L);
+        assertTrue(index.search("sleeve").isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    private Product product(Long id, String name, String description) {
+        return Product.builder()
+                .id(id)
+                .sku("SKU-" + id)
+                .name(name)
+                .description(description)
+                .price(BigDecimal.ONE)
+                .stockQuantity(1)
+                .build();
+    }
+}
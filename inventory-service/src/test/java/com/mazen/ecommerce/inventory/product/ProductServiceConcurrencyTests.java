@@ -0,0 +1,129 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.StockLine;
+import jakarta.persistence.EntityNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers one hot SKU from many threads: every unit of stock must be sold exactly once.
+ */
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none", // keep the lock timeout below
+        "spring.datasource.url=jdbc:h2:mem:inventory;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1"
+})
+@Import({ProductService.class, ProductCache.class, CatalogChangeService.class, ProductSearchIndex.class,
+        StockLedgerService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each decrement commits on its own, like in production
+class ProductServiceConcurrencyTests {
+
+    private static final String SKU = "HOT-SKU-1";
+    private static final int INITIAL_STOCK = 100;
+    private static final int BUYERS = 400;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+        productRepository.save(Product.builder()
+                .sku(SKU)
+                .name("Flash sale item")
+                .price(BigDecimal.TEN)
+                .stockQuantity(INITIAL_STOCK)
+                .build());
+    }
+
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            for (int i = 0; i < BUYERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        productService.decreaseStock(SKU, 1, null);
+                        sold.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(INITIAL_STOCK, sold.get());
+        assertEquals(BUYERS - INITIAL_STOCK, rejected.get());
+        assertEquals(0, productRepository.findBySku(SKU).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void increaseAndDecreaseReportMissingProductAndLowStock() {
+        productService.increaseStock(SKU, 5, null);
+        assertEquals(INITIAL_STOCK + 5, productRepository.findAvailableStockBySku(SKU).orElseThrow());
+
+        assertThrows(IllegalStateException.class, () -> productService.decreaseStock(SKU, INITIAL_STOCK + 6, null));
+        assertThrows(EntityNotFoundException.class, () -> productService.decreaseStock("MISSING", 1, null));
+        assertThrows(EntityNotFoundException.class, () -> productService.increaseStock("MISSING", 1, null));
+        assertThrows(IllegalArgumentException.class, () -> productService.decreaseStock(SKU, -1, null));
+    }
+
+    @Test
+    void bulkDecreaseIsAllOrNothing() {
+        productRepository.save(Product.builder()
+                .sku("OTHER-SKU")
+                .name("Slow mover")
+                .price(BigDecimal.ONE)
+                .stockQuantity(1)
+                .build());
+
+        assertThrows(InsufficientStockException.class, () -> productService.decreaseStock(List.of(
+                new StockLine(SKU, 10),
+                new StockLine("OTHER-SKU", 2)), StockMovementReason.SALE, null));
+        assertEquals(INITIAL_STOCK, productRepository.findBySku(SKU).orElseThrow().getStockQuantity());
+
+        productService.decreaseStock(List.of(
+                new StockLine("OTHER-SKU", 1),
+                new StockLine(SKU, 10),
+                new StockLine(SKU, 5)), StockMovementReason.SALE, null);
+        assertEquals(INITIAL_STOCK - 15, productRepository.findBySku(SKU).orElseThrow().getStockQuantity());
+        assertEquals(0, productRepository.findBySku("OTHER-SKU").orElseThrow().getStockQuantity());
+
+        productService.increaseStock(List.of(new StockLine(SKU, 15), new StockLine("OTHER-SKU", 1)), null, null);
+        assertEquals(INITIAL_STOCK, productRepository.findAvailableStockBySku(SKU).orElseThrow());
+        assertEquals(1, productRepository.findAvailableStockBySku("OTHER-SKU").orElseThrow());
+    }
+}
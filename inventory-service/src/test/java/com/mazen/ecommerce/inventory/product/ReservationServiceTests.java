@@ -0,0 +1,153 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.ReservationResponse;
+import com.mazen.ecommerce.inventory.product.dto.ReserveStockRequest;
+import com.mazen.ecommerce.inventory.product.dto.StockLine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ProductService.class, ReservationService.class, ProductCache.class, CatalogChangeService.class, ProductSearchIndex.class,
+        StockLedgerService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationServiceTests {
+
+    private static final String SKU = "SKU-1";
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+        productRepository.save(Product.builder()
+                .sku(SKU)
+                .name("Item")
+                .price(BigDecimal.TEN)
+                .stockQuantity(10)
+                .build());
+    }
+
+    @Test
+    void reserveHoldsStockOnceAndConfirmMakesItFinal() {
+        ReservationResponse held = reservationService.reserve(request("cart-1", 3));
+        reservationService.reserve(request("cart-1", 3)); // retry with the same key
+
+        assertEquals(ReservationStatus.HELD, held.getStatus());
+        assertEquals(7, stock());
+
+        assertEquals(ReservationStatus.CONFIRMED, reservationService.confirm("cart-1").getStatus());
+        assertThrows(ReservationStateException.class, () -> reservationService.release("cart-1"));
+        assertEquals(7, stock());
+    }
+
+    @Test
+    void releaseReturnsStockOnlyOnce() {
+        reservationService.reserve(request("cart-2", 4));
+
+        reservationService.release("cart-2");
+        reservationService.release("cart-2");
+
+        assertEquals(10, stock());
+        assertThrows(ReservationStateException.class, () -> reservationService.confirm("cart-2"));
+    }
+
+    @Test
+    void reusedKeyHoldsStockAgainOnceTheOldHoldIsGone() {
+        reservationService.reserve(request("cart-8", 4));
+        reservationService.release("cart-8");
+
+        ReservationResponse again = reservationService.reserve(request("cart-8", 4));
+        assertEquals(ReservationStatus.HELD, again.getStatus());
+        assertEquals(6, stock());
+
+        expire("cart-8"); // lapsed but not swept yet
+        assertEquals(ReservationStatus.HELD, reservationService.reserve(request("cart-8", 2)).getStatus());
+        assertEquals(8, stock());
+        assertEquals(0, reservationService.expireBatch(10));
+        assertEquals(ReservationStatus.CONFIRMED, reservationService.confirm("cart-8").getStatus());
+    }
+
+    @Test
+    void reusedKeyWithOtherLinesReplacesTheHoldUnlessConfirmed() {
+        reservationService.reserve(request("cart-9", 4));
+
+        ReservationResponse changed = reservationService.reserve(request("cart-9", 1)); // the cart changed
+        assertEquals(ReservationStatus.HELD, changed.getStatus());
+        assertEquals(1, changed.getLines().get(0).getQuantity());
+        assertEquals(9, stock());
+
+        reservationService.confirm("cart-9");
+        assertThrows(ReservationStateException.class, () -> reservationService.reserve(request("cart-9", 2)));
+        assertEquals(9, stock());
+    }
+
+    @Test
+    void sweeperReturnsExpiredHoldsAndTheyCannotBeConfirmed() {
+        reservationService.reserve(request("cart-3", 5));
+        reservationService.reserve(request("cart-4", 2));
+        expire("cart-3");
+
+        assertEquals(1, reservationService.expireBatch(10));
+        assertEquals(0, reservationService.expireBatch(10));
+
+        assertEquals(8, stock());
+        assertEquals(ReservationStatus.EXPIRED, reservationService.getReservation("cart-3").getStatus());
+        assertThrows(ReservationStateException.class, () -> reservationService.confirm("cart-3"));
+        assertEquals(ReservationStatus.CONFIRMED, reservationService.confirm("cart-4").getStatus());
+    }
+
+    @Test
+    void releaseAllSkipsConfirmedAndUnknownKeysAndIsRepeatable() {
+        reservationService.reserve(request("cart-5", 1));
+        reservationService.reserve(request("cart-6", 2));
+        reservationService.reserve(request("cart-7", 3));
+        reservationService.confirm("cart-7");
+
+        List<String> keys = List.of("cart-5", "cart-6", "cart-7", "cart-unknown");
+        assertEquals(2, reservationService.releaseAll(keys));
+        assertEquals(0, reservationService.releaseAll(keys));
+
+        assertEquals(7, stock());
+        assertEquals(ReservationStatus.RELEASED, reservationService.getReservation("cart-6").getStatus());
+        assertEquals(ReservationStatus.CONFIRMED, reservationService.getReservation("cart-7").getStatus());
+    }
+
+    private ReserveStockRequest request(String key, int quantity) {
+        return new ReserveStockRequest(key, List.of(new StockLine(SKU, quantity)), null);
+    }
+
+    private void expire(String key) {
+        reservationRepository.findByReservationKeyOrderBySku(key).forEach(r -> {
+            r.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            reservationRepository.save(r);
+        });
+    }
+
+    private int stock() {
+        return productRepository.findAvailableStockBySku(SKU).orElseThrow();
+    }
+}
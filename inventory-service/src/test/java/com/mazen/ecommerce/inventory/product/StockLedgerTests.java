@@ -0,0 +1,138 @@
+package com.mazen.ecommerce.inventory.product;
+
+import com.mazen.ecommerce.inventory.product.dto.StockLine;
+import com.mazen.ecommerce.inventory.product.dto.StockMovementResponse;
+import com.mazen.ecommerce.inventory.product.dto.UpdateProductRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "inventory.product-cache.enabled=false")
+@Import({ProductService.class, ProductCache.class, CatalogChangeService.class, ProductSearchIndex.class,
+        StockLedgerService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockLedgerTests {
+
+    private static final String SKU = "LEDGER-1";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+        productRepository.save(Product.builder()
+                .sku(SKU)
+                .name("Ledger item")
+                .price(BigDecimal.ONE)
+                .stockQuantity(10)
+                .build());
+    }
+
+    @Test
+    void increasesStayInTheTailUntilCompacted() {
+        productService.increaseStock(SKU, 5, "order-1");
+        productService.increaseStock(List.of(new StockLine(SKU, 3)), "order-2", null);
+
+        assertEquals(10, snapshot());
+        assertEquals(18, productService.getProductBySku(SKU).getStockQuantity());
+        assertTrue(productService.isInStock(SKU, 18));
+
+        assertEquals(2, stockLedgerService.compactBatch(100));
+        assertEquals(0, stockLedgerService.compactBatch(100));
+        assertEquals(18, snapshot());
+        assertEquals(18, productService.getProductBySku(SKU).getStockQuantity());
+    }
+
+    @Test
+    void decrementCompactsThePendingTailWhenTheSnapshotFallsShort() {
+        productService.increaseStock(SKU, 5, null);
+
+        productService.decreaseStock(SKU, 12, "order-3");
+
+        assertEquals(3, snapshot());
+        assertThrows(InsufficientStockException.class, () -> productService.decreaseStock(SKU, 4, null));
+        assertEquals(3, productService.getProductBySku(SKU).getStockQuantity());
+    }
+
+    @Test
+    void everyChangeIsRecordedWithReasonAndReference() {
+        productService.decreaseStock(SKU, 2, "order-4");
+        productService.increaseStock(SKU, 2, "order-4");
+        UpdateProductRequest update = new UpdateProductRequest();
+        update.setStockQuantity(25);
+        productService.updateProduct(SKU, update);
+
+        List<StockMovementResponse> movements = stockLedgerService.getMovements(SKU, 0, 10).getContent();
+
+        assertEquals(List.of(StockMovementReason.ADJUSTMENT, StockMovementReason.RESTOCK, StockMovementReason.SALE),
+                movements.stream().map(StockMovementResponse::getReason).toList());
+        assertEquals(List.of(15, 2, -2), movements.stream().map(StockMovementResponse::getDelta).toList());
+        assertEquals("order-4", movements.get(1).getReference());
+        assertTrue(movements.stream().allMatch(StockMovementResponse::isApplied));
+        assertEquals(25, snapshot());
+    }
+
+    @Test
+    void bulkRestockIsAppliedOncePerCommand() {
+        List<StockLine> lines = List.of(new StockLine(SKU, 4));
+
+        productService.increaseStock(lines, "cart-9", "outbox-1");
+        productService.increaseStock(lines, "cart-9", "outbox-1"); // redelivered
+        assertEquals(14, productService.getProductBySku(SKU).getStockQuantity());
+
+        productService.increaseStock(lines, "cart-9", "outbox-2"); // the same cart restocked again
+        assertEquals(18, productService.getProductBySku(SKU).getStockQuantity());
+    }
+
+    @Test
+    void keyedDecrementIsAppliedOnceAndGivenBackOnlyIfTaken() {
+        productService.decreaseStock(SKU, 2, "cart-1", "fan-out-1");
+        productService.decreaseStock(SKU, 2, "cart-1", "fan-out-1"); // resent after a lost response
+        assertEquals(8, productService.getProductBySku(SKU).getStockQuantity());
+
+        productService.increaseStock(List.of(new StockLine(SKU, 2)), "cart-1", "outbox-1", "fan-out-1");
+        assertEquals(10, productService.getProductBySku(SKU).getStockQuantity());
+
+        // Revoked before it arrived: nothing to give back, and the late decrement is turned away
+        productService.increaseStock(List.of(new StockLine(SKU, 3)), "cart-2", "outbox-2", "fan-out-2");
+        productService.decreaseStock(SKU, 3, "cart-2", "fan-out-2");
+        assertEquals(10, productService.getProductBySku(SKU).getStockQuantity());
+    }
+
+    @Test
+    void listingsIncludeThePendingTail() {
+        productService.increaseStock(SKU, 5, null);
+
+        assertEquals(15, productService.getAllProducts(0, 10).getContent().get(0).getStockQuantity());
+        assertEquals(15, productService.scrollProducts(null, 10).getItems().get(0).getStockQuantity());
+
+        UpdateProductRequest rename = new UpdateProductRequest();
+        rename.setName("Renamed");
+        assertEquals(15, productService.updateProduct(SKU, rename).getStockQuantity());
+    }
+
+    private int snapshot() {
+        return productRepository.findBySku(SKU).orElseThrow().getStockQuantity();
+    }
+}
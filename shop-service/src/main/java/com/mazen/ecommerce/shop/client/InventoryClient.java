@@ -1,24 +1,66 @@
 package com.mazen.ecommerce.shop.client;
 
+import com.mazen.ecommerce.shop.client.dto.BulkStockRequest;
+import com.mazen.ecommerce.shop.client.dto.CatalogChangesResponse;
 import com.mazen.ecommerce.shop.client.dto.ProductResponse;
+import com.mazen.ecommerce.shop.client.dto.ReservationKeysRequest;
+import com.mazen.ecommerce.shop.client.dto.ReservationResponse;
+import com.mazen.ecommerce.shop.client.dto.ReserveStockRequest;
+import com.mazen.ecommerce.shop.client.dto.SkuBatchRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 @FeignClient(name = "INVENTORY-SERVICE")
 public interface InventoryClient {
 
     @GetMapping("/api/inventory/{sku}/stock")
     Boolean isInStock(@PathVariable("sku") String sku, @RequestParam("quantity") int quantity);
 
+    // SKUs whose name/description/price changed after the given change id (negative id = current position only)
+    @GetMapping("/api/inventory/catalog-changes")
+    CatalogChangesResponse getCatalogChanges(@RequestParam("after") long after, @RequestParam("limit") int limit);
+
+    // reference ends up on inventory's stock ledger, so a failed call can be reconciled against it;
+    // requestId makes the decrement apply at most once per SKU and lets a restock revoke it
     @PostMapping("/api/inventory/{sku}/decrease")
-    Void decreaseStock(@PathVariable("sku") String sku, @RequestParam("quantity") int quantity);
+    Void decreaseStock(@PathVariable("sku") String sku, @RequestParam("quantity") int quantity,
+                       @RequestParam("reference") String reference, @RequestParam("requestId") String requestId);
 
     @GetMapping("/api/inventory/{sku}")
     ProductResponse getProductBySku(@PathVariable("sku") String sku);
 
+    // One call for many SKUs; unknown SKUs are left out of the result
+    @PostMapping("/api/inventory/batch")
+    List<ProductResponse> getProductsBySkus(@RequestBody SkuBatchRequest request);
+
     @PostMapping("/api/inventory/{sku}/increase")
-    Void increaseStock(@PathVariable("sku") String sku,@RequestParam("newQuantity") Integer quantity);
+    Void increaseStock(@PathVariable("sku") String sku, @RequestParam("quantity") Integer quantity,
+                       @RequestParam("reference") String reference);
+
+    // All lines are decremented in one transaction or none are (409 Conflict when any SKU is short)
+    @PostMapping("/api/inventory/bulk/decrease")
+    Void decreaseStockBulk(@RequestBody BulkStockRequest request);
+
+    @PostMapping("/api/inventory/bulk/increase")
+    Void increaseStockBulk(@RequestBody BulkStockRequest request);
+
+    // Holds the lines for a limited time; inventory gives the units back if the hold is never confirmed
+    @PostMapping("/api/inventory/reservations")
+    ReservationResponse reserveStock(@RequestBody ReserveStockRequest request);
+
+    @PostMapping("/api/inventory/reservations/{reservationKey}/confirm")
+    ReservationResponse confirmReservation(@PathVariable("reservationKey") String reservationKey);
+
+    @PostMapping("/api/inventory/reservations/{reservationKey}/release")
+    ReservationResponse releaseReservation(@PathVariable("reservationKey") String reservationKey);
+
+    // Many releases in one call; keys with nothing left to release are skipped, so redelivery is harmless
+    @PostMapping("/api/inventory/reservations/release")
+    Integer releaseReservations(@RequestBody ReservationKeysRequest request);
 }
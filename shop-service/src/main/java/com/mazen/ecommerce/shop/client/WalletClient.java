@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
+// Withdraw and deposit carry an Idempotency-Key, so a retried call moves the money only once
 @FeignClient(name = "WALLET-SERVICE")
 public interface WalletClient {
 
@@ -17,7 +18,15 @@ public interface WalletClient {
     @PostMapping("/api/transactions/{walletId}/withdraw")
     TransactionResponse withdraw(
             @PathVariable("walletId") Long walletId,
-            @RequestBody CreateTransactionRequest request
+            @RequestBody CreateTransactionRequest request,
+            @RequestHeader("Idempotency-Key") String idempotencyKey
+    );
+
+    @PostMapping("/api/transactions/{walletId}/deposit")
+    TransactionResponse deposit(
+            @PathVariable("walletId") Long walletId,
+            @RequestBody CreateTransactionRequest request,
+            @RequestHeader("Idempotency-Key") String idempotencyKey
     );
 
 }
@@ -0,0 +1,21 @@
+package com.mazen.ecommerce.shop.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStockRequest {
+    private List<StockLine> lines;
+    private String reference; // kept on inventory's stock ledger entries
+    private String requestId; // unique per restock command, a redelivery with the same id is applied once
+    private String revokedRequestId; // decrements undone by this restock: only what they took is given back
+
+    public BulkStockRequest(List<StockLine> lines, String reference, String requestId) {
+        this(lines, reference, requestId, null);
+    }
+}
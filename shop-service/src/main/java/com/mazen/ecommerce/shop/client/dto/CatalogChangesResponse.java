@@ -0,0 +1,12 @@
+package com.mazen.ecommerce.shop.client.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CatalogChangesResponse {
+    private long lastChangeId;
+    private List<String> skus;
+    private boolean hasMore;
+}
@@ -0,0 +1,14 @@
+package com.mazen.ecommerce.shop.client.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class ReservationResponse {
+    private String reservationKey;
+    private String status; // HELD, CONFIRMED, RELEASED, EXPIRED
+    private LocalDateTime expiresAt;
+    private List<StockLine> lines;
+}
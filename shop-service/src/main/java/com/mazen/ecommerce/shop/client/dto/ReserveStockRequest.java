@@ -0,0 +1,16 @@
+package com.mazen.ecommerce.shop.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockRequest {
+    private String reservationKey;
+    private List<StockLine> lines;
+    private Long ttlSeconds;
+}
@@ -0,0 +1,14 @@
+package com.mazen.ecommerce.shop.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkuBatchRequest {
+    private List<String> skus;
+}
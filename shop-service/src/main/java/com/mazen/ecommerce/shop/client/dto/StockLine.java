@@ -0,0 +1,13 @@
+package com.mazen.ecommerce.shop.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLine {
+    private String sku;
+    private Integer quantity;
+}
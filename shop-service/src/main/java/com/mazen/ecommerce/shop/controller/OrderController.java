@@ -2,12 +2,14 @@ package com.mazen.ecommerce.shop.controller;
 
 import com.mazen.ecommerce.shop.dto.order.CreateOrderRequest;
 import com.mazen.ecommerce.shop.dto.order.OrderResponse;
+import com.mazen.ecommerce.shop.service.IdempotencyService;
 import com.mazen.ecommerce.shop.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -16,16 +18,34 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
+    // A repeated request with the same Idempotency-Key gets the order placed by the first one instead of a new one
     @PostMapping("/users/{userId}/orders")
     public ResponseEntity<OrderResponse> createOrder(
             @PathVariable Long userId,
-            @Valid @RequestBody CreateOrderRequest request) throws IllegalAccessException {
+            @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws IllegalAccessException {
 
-        OrderResponse response = orderService.createOrder(userId, request);
+        OrderResponse response = idempotencyService.execute("order:" + userId, idempotencyKey, request,
+                OrderResponse.class, () -> orderService.createOrder(userId, request));
         return ResponseEntity.ok(response);
     }
 
+    // Returns 202 with the PENDING order; poll GET /api/orders/{orderId} until it is CONFIRMED or CANCELLED
+    @PostMapping("/users/{userId}/orders/async")
+    public ResponseEntity<OrderResponse> createOrderAsync(
+            @PathVariable Long userId,
+            @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws IllegalAccessException {
+
+        OrderResponse response = idempotencyService.execute("order-async:" + userId, idempotencyKey, request,
+                OrderResponse.class, () -> orderService.createOrderAsync(userId, request));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/" + response.getId()))
+                .body(response);
+    }
+
     @GetMapping("/users/{userId}/orders")
     public ResponseEntity<List<OrderResponse>> getUserOrders(@PathVariable Long userId) {
 
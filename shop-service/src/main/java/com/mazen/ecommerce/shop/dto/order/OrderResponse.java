@@ -24,4 +24,5 @@ public class OrderResponse {
     private LocalDateTime createdAt;
     private List<OrderItemResponse> orderItems;
     private Integer totalItems;
+    private String failureReason; // why an async checkout was cancelled or needs attention
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.mazen.ecommerce.shop.model;
+
+import com.mazen.ecommerce.shop.model.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A recently used Idempotency-Key and the response it produced. Rows are deleted once they expire,
+ * so the table only ever holds the keys of the last TTL.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_scope_key", columnNames = {"scope", "idempotencyKey"}),
+        indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String scope; // operation and owner, e.g. "order:12"
+
+    @Column(nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash; // SHA-256 of the request body, a key cannot be reused for another request
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IdempotencyStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody; // JSON
+
+    // When the current owner took the key; an IN_PROGRESS record older than the lock timeout was abandoned
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -35,4 +35,8 @@ public class Order {
     private Payment payment;
 
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Why an async checkout or a cancellation did not go through (see CheckoutSaga, OrderCancellationSaga)
+    @Column(length = 500)
+    private String failureReason;
 }
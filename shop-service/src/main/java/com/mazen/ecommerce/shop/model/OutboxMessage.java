@@ -0,0 +1,64 @@
+package com.mazen.ecommerce.shop.model;
+
+import com.mazen.ecommerce.shop.model.enums.OutboxCommandType;
+import com.mazen.ecommerce.shop.model.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A command for another service, stored in the same transaction as the order change that caused it
+ * and delivered later by OutboxRelay, so it cannot be lost between the two.
+ */
+@Entity
+@Table(name = "outbox_messages",
+        indexes = @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private OutboxCommandType type;
+
+    @Column(nullable = false, length = 100)
+    private String reference;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload; // JSON, depends on the type
+
+    // RESTOCK only: request id of the decrements it undoes, when their outcome was not known (see InventoryFanOut)
+    @Column(length = 100)
+    private String revokedRequestId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Also used as the relay's lease: a claimed message is pushed into the future while it is being delivered
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
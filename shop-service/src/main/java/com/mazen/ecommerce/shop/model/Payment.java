@@ -32,5 +32,7 @@ public class Payment {
 
     private String transactionId; // from wallet-service
 
+    private Long walletId; // the wallet that was charged, refunds go back to it
+
     private LocalDateTime createdAt = LocalDateTime.now();
 }
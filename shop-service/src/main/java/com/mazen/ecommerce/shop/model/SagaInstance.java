@@ -0,0 +1,71 @@
+package com.mazen.ecommerce.shop.model;
+
+import com.mazen.ecommerce.shop.model.enums.SagaStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One run of a saga (see SagaOrchestrator). Holds only scheduling state: what each step did is in its SagaStepLog rows.
+ */
+@Entity
+@Table(name = "sagas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_saga_type_business_key", columnNames = {"type", "businessKey"}),
+        indexes = {
+                @Index(name = "idx_saga_next_attempt", columnList = "nextAttemptAt"),
+                @Index(name = "idx_saga_business_key", columnList = "businessKey")
+        })
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaInstance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String type; // SagaDefinition.type()
+
+    @Column(nullable = false, length = 100)
+    private String businessKey; // what the saga is about, e.g. the order id
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SagaStatus status;
+
+    // Index of the first stage that has not fully succeeded yet
+    @Column(nullable = false)
+    private Integer currentStage;
+
+    // Failed attempts of the current stage (or of the compensation), reset whenever it moves on
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Null once the saga has finished; otherwise when a worker should pick it up next
+    private LocalDateTime nextAttemptAt;
+
+    // Set while a worker owns the saga, so other instances skip it until the lease runs out
+    private LocalDateTime leaseUntil;
+
+    @Column(length = 500)
+    private String failureReason;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
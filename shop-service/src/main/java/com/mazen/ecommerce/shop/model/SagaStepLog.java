@@ -0,0 +1,49 @@
+package com.mazen.ecommerce.shop.model;
+
+import com.mazen.ecommerce.shop.model.enums.SagaStepStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted progress of one step of a saga. The status is written before the step's call goes out and again
+ * once its outcome is known, so after a crash the orchestrator knows which calls may already have happened.
+ */
+@Entity
+@Table(name = "saga_step_logs",
+        uniqueConstraints = @UniqueConstraint(name = "uk_saga_step", columnNames = {"sagaId", "stepName"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaStepLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long sagaId;
+
+    @Column(nullable = false, length = 50)
+    private String stepName;
+
+    @Column(nullable = false)
+    private Integer stage;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SagaStepStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
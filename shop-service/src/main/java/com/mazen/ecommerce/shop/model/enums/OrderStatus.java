@@ -2,7 +2,9 @@ package com.mazen.ecommerce.shop.model.enums;
 
 public enum OrderStatus {
     PENDING,
+    RESERVED,  // async checkout: stock held by an inventory reservation, payment not taken yet
     PAID,
+    CONFIRMED, // async checkout: paid and the reservation confirmed, ready to ship
     SHIPPED,
     CANCELLED
 }
@@ -0,0 +1,6 @@
+package com.mazen.ecommerce.shop.model.enums;
+
+public enum OutboxCommandType {
+    RELEASE_RESERVATION, // give a held inventory reservation back (reference = reservation key)
+    RESTOCK              // return decremented cart lines to inventory (reference = cart key, payload = lines)
+}
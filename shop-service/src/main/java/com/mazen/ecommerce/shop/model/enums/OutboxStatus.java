@@ -0,0 +1,7 @@
+package com.mazen.ecommerce.shop.model.enums;
+
+public enum OutboxStatus {
+    PENDING, // waiting for (re)delivery
+    SENT,    // acknowledged by the target service
+    FAILED   // gave up after the maximum number of attempts, needs manual handling
+}
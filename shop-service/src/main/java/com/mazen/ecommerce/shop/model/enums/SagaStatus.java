@@ -0,0 +1,9 @@
+package com.mazen.ecommerce.shop.model.enums;
+
+public enum SagaStatus {
+    RUNNING,      // executing its steps stage by stage
+    COMPENSATING, // a step failed, undoing the steps that completed
+    COMPLETED,    // every step succeeded
+    COMPENSATED,  // failed and fully undone
+    FAILED        // could not be completed nor undone, needs manual handling
+}
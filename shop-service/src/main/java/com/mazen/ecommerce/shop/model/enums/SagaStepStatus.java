@@ -0,0 +1,10 @@
+package com.mazen.ecommerce.shop.model.enums;
+
+public enum SagaStepStatus {
+    PENDING,      // not sent yet, or failed in a way that is safe to retry
+    STARTED,      // sent, outcome not recorded yet (in flight, or the worker died)
+    SUCCEEDED,
+    FAILED,       // rejected for good, nothing to undo
+    COMPENSATING, // undo sent, outcome not recorded yet
+    COMPENSATED
+}
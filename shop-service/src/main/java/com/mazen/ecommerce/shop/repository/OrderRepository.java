@@ -1,11 +1,17 @@
 package com.mazen.ecommerce.shop.repository;
 
 import com.mazen.ecommerce.shop.model.Order;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    // Items and payment in the same query: saga steps use the order outside of any session
+    @EntityGraph(attributePaths = {"orderItems", "payment"})
+    Optional<Order> findWithItemsById(Long id);
 }
\ No newline at end of file
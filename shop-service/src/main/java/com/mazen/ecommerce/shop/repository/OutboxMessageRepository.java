@@ -0,0 +1,34 @@
+package com.mazen.ecommerce.shop.repository;
+
+import com.mazen.ecommerce.shop.model.OutboxMessage;
+import com.mazen.ecommerce.shop.model.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Served by idx_outbox_status_next_attempt, oldest first so commands go out in the order they were written
+    List<OutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(OutboxStatus status,
+                                                                               LocalDateTime now,
+                                                                               Pageable pageable);
+
+    // Only one relay (across all instances) gets to deliver a message
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :leaseUntil WHERE m.id = :id " +
+            "AND m.status = com.mazen.ecommerce.shop.model.enums.OutboxStatus.PENDING AND m.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = com.mazen.ecommerce.shop.model.enums.OutboxStatus.SENT " +
+            "AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
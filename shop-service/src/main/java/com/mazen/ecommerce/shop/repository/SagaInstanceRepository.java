@@ -0,0 +1,34 @@
+package com.mazen.ecommerce.shop.repository;
+
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface SagaInstanceRepository extends JpaRepository<SagaInstance, Long> {
+
+    Optional<SagaInstance> findByTypeAndBusinessKey(String type, String businessKey);
+
+    List<SagaInstance> findByBusinessKeyOrderByIdAsc(String businessKey);
+
+    boolean existsByBusinessKeyAndNextAttemptAtIsNotNull(String businessKey);
+
+    // Sagas that are due and not leased by a worker, served by idx_saga_next_attempt
+    @Query("SELECT s.id FROM SagaInstance s WHERE s.nextAttemptAt <= :now " +
+            "AND (s.leaseUntil IS NULL OR s.leaseUntil < :now) ORDER BY s.nextAttemptAt")
+    List<Long> findDueForProcessing(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Only one worker (across all instances) wins the lease on a saga
+    @Transactional
+    @Modifying
+    @Query("UPDATE SagaInstance s SET s.leaseUntil = :leaseUntil WHERE s.id = :id " +
+            "AND s.nextAttemptAt IS NOT NULL AND (s.leaseUntil IS NULL OR s.leaseUntil < :now)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
@@ -0,0 +1,11 @@
+package com.mazen.ecommerce.shop.repository;
+
+import com.mazen.ecommerce.shop.model.SagaStepLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface SagaStepLogRepository extends JpaRepository<SagaStepLog, Long> {
+
+    List<SagaStepLog> findBySagaIdOrderByIdAsc(Long sagaId);
+}
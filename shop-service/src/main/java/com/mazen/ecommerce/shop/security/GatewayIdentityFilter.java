@@ -0,0 +1,107 @@
+package com.mazen.ecommerce.shop.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+
+/**
+ * Trust-gateway mode: builds the security context from the X-User-* headers set by the api-gateway
+ * when they carry a valid gateway signature, so no JWT is parsed in this service. The signature is bound to
+ * the request method and path, so headers captured from one request only ever authenticate that request.
+ * Unsigned, stale or tampered headers are ignored and the request continues unauthenticated.
+ */
+@Slf4j
+@Component
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final Duration maxSkew;
+    private final SecretKeySpec keySpec;
+
+    public GatewayIdentityFilter(@Value("${security.gateway-identity.enabled:false}") boolean enabled,
+                                 @Value("${security.gateway-identity.signing-key:}") String signingKey,
+                                 @Value("${security.gateway-identity.max-skew:5m}") Duration maxSkew) {
+        this.enabled = enabled && StringUtils.hasText(signingKey);
+        this.maxSkew = maxSkew;
+        this.keySpec = this.enabled
+                ? new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), ALGORITHM)
+                : null;
+        if (enabled && !this.enabled) {
+            log.warn("security.gateway-identity.enabled is set without a signing key, gateway identity headers will be ignored");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || request.getHeader("X-User-Signature") == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String userId = request.getHeader("X-User-Id");
+        String email = request.getHeader("X-User-Email");
+        String role = request.getHeader("X-User-Role");
+        String timestamp = request.getHeader("X-User-Timestamp");
+        String signature = request.getHeader("X-User-Signature");
+
+        if (isTrusted(request.getMethod(), request.getRequestURI(), userId, email, role, timestamp, signature)) {
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    email, null, Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role)));
+            authentication.setDetails(Long.valueOf(userId));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        } else {
+            log.debug("Ignoring gateway identity headers that failed verification");
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isTrusted(String method, String path, String userId, String email, String role, String timestamp,
+                              String signature) {
+        if (userId == null || email == null || role == null || timestamp == null) {
+            return false;
+        }
+
+        try {
+            Long.parseLong(userId);
+            long signedAt = Long.parseLong(timestamp);
+            if (Math.abs(System.currentTimeMillis() - signedAt) > maxSkew.toMillis()) {
+                return false;
+            }
+
+            // Same canonical form as GatewayIdentitySigner in the api-gateway
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(keySpec);
+            byte[] expected = mac.doFinal((method + "\n" + path + "\n" + userId + "\n" + email + "\n" + role + "\n"
+                    + timestamp).getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature));
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            return false;
+        }
+    }
+}
@@ -7,10 +7,13 @@ import com.mazen.ecommerce.shop.dto.payment.PaymentResponse;
 import com.mazen.ecommerce.shop.model.Order;
 import com.mazen.ecommerce.shop.model.OrderItem;
 import com.mazen.ecommerce.shop.model.Payment;
+import com.mazen.ecommerce.shop.model.SagaInstance;
 import com.mazen.ecommerce.shop.model.enums.OrderStatus;
 import com.mazen.ecommerce.shop.model.enums.PaymentStatus;
 import com.mazen.ecommerce.shop.repository.OrderRepository;
 import com.mazen.ecommerce.shop.repository.PaymentRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaOrchestrator;
+import com.mazen.ecommerce.shop.service.saga.SagaWorker;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,6 +22,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.math.BigDecimal;
@@ -34,24 +38,44 @@ public class AdminService {
 
     private final OrderRepository orderRepository;
     private final PaymentRepository paymentRepository;
+    private final SagaOrchestrator sagaOrchestrator;
+    private final SagaWorker sagaWorker;
+    private final TransactionTemplate transactionTemplate;
 
     public OrderResponse updateOrderStatus(Long orderId, UpdateOrderStatusRequest request) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + orderId));
 
+        // Orders with a checkout or cancellation saga in flight belong to the saga until it finishes
+        if (sagaOrchestrator.isInFlight(orderId.toString())) {
+            throw new InvalidStatusTransitionException("Order " + orderId + " is still being processed");
+        }
+
         // Business rules for status transitions
         validateStatusTransition(order.getStatus(), request.getStatus());
 
+        // A paid or confirmed order has its charge and units taken: an OrderCancellationSaga gives them back,
+        // the same way a customer cancellation does (see OrderService.cancelOrder)
+        boolean giveBack = request.getStatus() == OrderStatus.CANCELLED
+                && (order.getStatus() == OrderStatus.PAID || order.getStatus() == OrderStatus.CONFIRMED);
+
         order.setStatus(request.getStatus());
 
-        // Update payment status based on order status
-        // PENDING -> PAID -> SHIPPED -> CANCELLED
-        if (order.getPayment() != null) {
-            updatePaymentStatusBasedOnOrder(order.getPayment(), request.getStatus());
+        Order updated = order;
+        SagaInstance saga = transactionTemplate.execute(status -> {
+            // Update payment status based on order status
+            // PENDING -> PAID -> SHIPPED -> CANCELLED
+            if (updated.getPayment() != null) {
+                updatePaymentStatusBasedOnOrder(updated.getPayment(), request.getStatus());
+            }
+            orderRepository.save(updated);
+            return giveBack ? sagaOrchestrator.start(OrderCancellationSaga.TYPE, orderId.toString()) : null;
+        });
+
+        if (saga != null) {
+            sagaWorker.dispatch(saga.getId());
         }
-
-        order = orderRepository.save(order);
-        return mapToOrderResponse(order);
+        return mapToOrderResponse(updated);
     }
 
     public List<OrderResponse> getAllOrders(int page, int size) {
@@ -78,7 +102,9 @@ public class AdminService {
         // Define valid transitions
         Map<OrderStatus, Set<OrderStatus>> validTransitions = Map.of(
                 OrderStatus.PENDING, Set.of(OrderStatus.PAID, OrderStatus.CANCELLED),
-                OrderStatus.PAID, Set.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED),
+                OrderStatus.RESERVED, Set.of(OrderStatus.PAID, OrderStatus.CANCELLED),
+                OrderStatus.PAID, Set.of(OrderStatus.CONFIRMED, OrderStatus.SHIPPED, OrderStatus.CANCELLED),
+                OrderStatus.CONFIRMED, Set.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED),
                 OrderStatus.SHIPPED, Set.of(), // Cannot change from shipped
                 OrderStatus.CANCELLED, Set.of() // Cannot change from cancelled
         );
@@ -97,9 +123,12 @@ public class AdminService {
                 payment.setCreatedAt(LocalDateTime.now());
                 break;
             case CANCELLED:
-                payment.setStatus(PaymentStatus.FAILED);
+                // A captured payment stays SUCCESS until the cancellation saga refunds it
+                if (payment.getStatus() != PaymentStatus.SUCCESS && payment.getStatus() != PaymentStatus.REFUNDED) {
+                    payment.setStatus(PaymentStatus.FAILED);
+                }
                 break;
-            // PENDING and SHIPPED don't change payment status
+            // PENDING, RESERVED, CONFIRMED and SHIPPED don't change payment status
         }
         paymentRepository.save(payment);
     }
@@ -127,6 +156,7 @@ public class AdminService {
                 .payment(paymentResponse)
                 .createdAt(order.getCreatedAt())
                 .totalItems(totalItems)
+                .failureReason(order.getFailureReason())
                 .build();
     }
 
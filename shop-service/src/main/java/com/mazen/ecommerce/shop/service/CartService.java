@@ -1,6 +1,5 @@
 package com.mazen.ecommerce.shop.service;
 
-import com.mazen.ecommerce.shop.client.InventoryClient;
 import com.mazen.ecommerce.shop.client.dto.ProductResponse;
 import com.mazen.ecommerce.shop.dto.cart.AddToCartRequest;
 import com.mazen.ecommerce.shop.dto.cart.CartItemResponse;
@@ -27,14 +26,14 @@ public class CartService {
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
-    private final InventoryClient inventoryClient;
+    private final ProductCatalogCache productCatalogCache;
 
     public CartItemResponse addItemToCart(Long userId, AddToCartRequest request) {
 
         Cart cart = getOrCreateCart(userId);
         cart.setCreatedAt(LocalDateTime.now());
 
-        ProductResponse product = inventoryClient.getProductBySku(request.getSku());
+        ProductResponse product = productCatalogCache.getProduct(request.getSku());
 
         if (product == null) {
             throw new EntityNotFoundException("Product not found with SKU: " + request.getSku());
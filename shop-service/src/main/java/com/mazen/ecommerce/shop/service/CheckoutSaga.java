@@ -0,0 +1,249 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.WalletClient;
+import com.mazen.ecommerce.shop.client.dto.CreateTransactionRequest;
+import com.mazen.ecommerce.shop.client.dto.ReservationKeysRequest;
+import com.mazen.ecommerce.shop.client.dto.ReserveStockRequest;
+import com.mazen.ecommerce.shop.client.dto.StockLine;
+import com.mazen.ecommerce.shop.client.dto.TransactionResponse;
+import com.mazen.ecommerce.shop.client.dto.TransactionType;
+import com.mazen.ecommerce.shop.client.dto.WalletResponse;
+import com.mazen.ecommerce.shop.model.Order;
+import com.mazen.ecommerce.shop.model.Payment;
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.model.enums.OrderStatus;
+import com.mazen.ecommerce.shop.model.enums.PaymentStatus;
+import com.mazen.ecommerce.shop.repository.OrderRepository;
+import com.mazen.ecommerce.shop.repository.PaymentRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaDefinition;
+import com.mazen.ecommerce.shop.service.saga.SagaStep;
+import com.mazen.ecommerce.shop.service.saga.SagaStepFailedException;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Async checkout of one order (business key = order id): the stock is held, then the wallet charged, then the
+ * hold confirmed. Each step stores the order status it reached, so the order moves PENDING -> RESERVED -> PAID
+ * and ends CONFIRMED, or CANCELLED once whatever was done is undone (hold released, charge refunded).
+ * Charging only after the stock is held keeps an out-of-stock cart from ever touching the wallet.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckoutSaga implements SagaDefinition {
+
+    public static final String TYPE = "checkout";
+
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final InventoryClient inventoryClient;
+    private final WalletClient walletClient;
+
+    @Value("${shop.checkout.reservation-ttl:15m}")
+    private Duration reservationTtl;
+
+    private final List<List<SagaStep>> stages = List.of(
+            List.of(new ReserveStock()),
+            List.of(new ChargeWallet()),
+            List.of(new ConfirmReservation()));
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public List<List<SagaStep>> stages() {
+        return stages;
+    }
+
+    static String reservationKey(SagaInstance saga) {
+        return "order-" + saga.getBusinessKey();
+    }
+
+    // Idempotency-Key of the deposit that refunds an order, whichever saga sends it
+    static String refundKey(Payment payment) {
+        return "order-" + payment.getOrder().getId() + "-refund";
+    }
+
+    @Override
+    public void onCompleted(SagaInstance saga) {
+        Order order = order(saga);
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setFailureReason(null);
+        orderRepository.save(order);
+    }
+
+    @Override
+    public void onCompensated(SagaInstance saga) {
+        cancel(saga);
+    }
+
+    @Override
+    public void onFailed(SagaInstance saga) {
+        cancel(saga);
+    }
+
+    private void cancel(SagaInstance saga) {
+        Order order = order(saga);
+        Payment payment = order.getPayment();
+        if (payment != null && payment.getStatus() == PaymentStatus.PENDING) {
+            payment.setStatus(PaymentStatus.FAILED);
+        }
+        order.setStatus(OrderStatus.CANCELLED);
+        order.setFailureReason(saga.getFailureReason());
+        orderRepository.save(order);
+    }
+
+    // Saved as each step succeeds, so polling the order shows how far the checkout got
+    private void advance(Order order, OrderStatus status) {
+        order.setStatus(status);
+        orderRepository.save(order);
+    }
+
+    private Order order(SagaInstance saga) {
+        Long orderId = Long.valueOf(saga.getBusinessKey());
+        return orderRepository.findWithItemsById(orderId)
+                .orElseThrow(() -> new SagaStepFailedException("Order " + orderId + " no longer exists"));
+    }
+
+    // Idempotent on the reservation key: a repeated reserve returns the existing hold
+    private class ReserveStock implements SagaStep {
+
+        @Override
+        public String name() {
+            return "reserve-stock";
+        }
+
+        @Override
+        public void execute(SagaInstance saga) {
+            Order order = order(saga);
+            List<StockLine> lines = order.getOrderItems().stream()
+                    .map(item -> new StockLine(item.getSku(), item.getQuantity()))
+                    .collect(Collectors.toList());
+            try {
+                inventoryClient.reserveStock(new ReserveStockRequest(reservationKey(saga), lines, reservationTtl.toSeconds()));
+            } catch (FeignException.Conflict | FeignException.NotFound e) {
+                throw new SagaStepFailedException("Some products in the cart are out of stock");
+            }
+            advance(order, OrderStatus.RESERVED);
+        }
+
+        // Skips a key that holds nothing (never reserved, expired, already released)
+        @Override
+        public void compensate(SagaInstance saga) {
+            inventoryClient.releaseReservations(new ReservationKeysRequest(List.of(reservationKey(saga))));
+        }
+    }
+
+    /**
+     * Withdraw and refund are sent with an Idempotency-Key derived from the order, so a call that got no response
+     * (or was cut off by a crash) is simply sent again and wallet-service applies it once. Only a 4xx rejection is
+     * taken as a declined payment; a 409 for a key that is still being processed, a 5xx and no response are retried.
+     */
+    private class ChargeWallet implements SagaStep {
+
+        @Override
+        public String name() {
+            return "charge-wallet";
+        }
+
+        @Override
+        public void execute(SagaInstance saga) {
+            Order order = order(saga);
+            Payment payment = order.getPayment();
+
+            List<WalletResponse> wallets = walletClient.getUserWallet(order.getUserId());
+            if (wallets.isEmpty()) {
+                throw new SagaStepFailedException("No wallets available for user " + order.getUserId());
+            }
+
+            // TODO Make it take the wallet that the user choose (Not just the first wallet)
+            // Stored before the call, so compensate knows which wallet to ask if the response is lost
+            payment.setWalletId(wallets.get(0).getId());
+            paymentRepository.save(payment);
+
+            TransactionResponse trx;
+            try {
+                trx = withdraw(order, payment);
+            } catch (FeignException.Conflict e) {
+                throw e; // the same key is still being processed, retried
+            } catch (FeignException.FeignClientException e) {
+                log.warn("Order {}: withdraw failed: {}", order.getId(), e.getMessage());
+                payment.setStatus(PaymentStatus.FAILED);
+                paymentRepository.save(payment);
+                throw new SagaStepFailedException("Payment failed");
+            }
+
+            markCharged(payment, trx);
+            advance(order, OrderStatus.PAID);
+        }
+
+        @Override
+        public void compensate(SagaInstance saga) {
+            Order order = order(saga);
+            Payment payment = order.getPayment();
+            if (payment.getStatus() == PaymentStatus.PENDING && payment.getWalletId() != null) {
+                // Sent but unanswered, the wallet may have applied it: replaying the keyed withdraw tells (and one
+                // that never arrived is applied now, which the refund below evens out)
+                try {
+                    markCharged(payment, withdraw(order, payment));
+                } catch (FeignException.Conflict e) {
+                    throw e; // still being processed, ask again later
+                } catch (FeignException.FeignClientException e) {
+                    payment.setStatus(PaymentStatus.FAILED);
+                    paymentRepository.save(payment);
+                    return; // declined, nothing was charged
+                }
+            }
+            if (payment.getStatus() != PaymentStatus.SUCCESS) {
+                return; // nothing was charged
+            }
+
+            walletClient.deposit(payment.getWalletId(),
+                    new CreateTransactionRequest(TransactionType.DEPOSIT, payment.getAmount()),
+                    refundKey(payment));
+            payment.setStatus(PaymentStatus.REFUNDED);
+            paymentRepository.save(payment);
+        }
+    }
+
+    private TransactionResponse withdraw(Order order, Payment payment) {
+        return walletClient.withdraw(payment.getWalletId(),
+                new CreateTransactionRequest(TransactionType.WITHDRAW, order.getTotalAmount()),
+                "order-" + order.getId() + "-withdraw");
+    }
+
+    private void markCharged(Payment payment, TransactionResponse trx) {
+        payment.setStatus(PaymentStatus.SUCCESS);
+        payment.setTransactionId(trx != null && trx.getId() != null ? trx.getId().toString() : null);
+        paymentRepository.save(payment);
+    }
+
+    // The last step, so once it succeeds nothing needs undoing
+    private class ConfirmReservation implements SagaStep {
+
+        @Override
+        public String name() {
+            return "confirm-reservation";
+        }
+
+        @Override
+        public void execute(SagaInstance saga) {
+            try {
+                inventoryClient.confirmReservation(reservationKey(saga));
+            } catch (FeignException.Conflict e) {
+                // The hold lapsed before the payment went through: the units are back on sale, so refund
+                throw new SagaStepFailedException("Reservation expired before confirmation");
+            }
+        }
+    }
+}
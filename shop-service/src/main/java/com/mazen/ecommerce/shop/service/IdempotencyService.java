@@ -0,0 +1,180 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazen.ecommerce.shop.model.IdempotencyRecord;
+import com.mazen.ecommerce.shop.model.enums.IdempotencyStatus;
+import com.mazen.ecommerce.shop.repository.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Idempotency-Key support for checkout: a repeated POST with the same key gets the order placed by the first one
+ * instead of a second order. Checkout spans inventory and wallet calls, so unlike wallet-service the action cannot
+ * share a transaction with its record: a failed checkout releases the key, and a key whose owner died is taken
+ * over after the lock timeout (the stock and wallet calls it repeats are keyed by the cart, so they apply once).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Value("${shop.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${shop.idempotency.lock-timeout:2m}")
+    private Duration lockTimeout;
+
+    @FunctionalInterface
+    public interface Action<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * Runs the action once per (scope, key). Without a key the action simply runs.
+     *
+     * @param scope   the operation and its owner, so two users can pick the same key
+     * @param request the request body, a repeat must send the same one
+     */
+    public <T, E extends Exception> T execute(String scope, String key, Object request, Class<T> responseType,
+                                              Action<T, E> action) throws E {
+        if (key == null) {
+            return action.run();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyRecord record = acquire(scope, key, hash(request));
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            log.debug("Replaying response of {} for Idempotency-Key {}", scope, key);
+            return read(record, responseType);
+        }
+
+        T response;
+        try {
+            response = action.run();
+        } catch (Exception e) {
+            // The checkout gave back what it took before failing, so a retry with the same key starts over
+            recordRepository.delete(record);
+            throw e;
+        }
+
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setResponseBody(write(response));
+        recordRepository.save(record);
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${shop.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        int deleted = recordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    // Returns the completed record to replay, or an IN_PROGRESS record owned by this request
+    private IdempotencyRecord acquire(String scope, String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> existing = recordRepository.findByScopeAndIdempotencyKey(scope, key)
+                .filter(record -> {
+                    if (record.getExpiresAt().isAfter(now)) {
+                        return true;
+                    }
+                    recordRepository.delete(record); // expired but not cleaned up yet
+                    return false;
+                });
+
+        if (existing.isEmpty()) {
+            try {
+                return recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .scope(scope)
+                        .idempotencyKey(key)
+                        .requestHash(requestHash)
+                        .status(IdempotencyStatus.IN_PROGRESS)
+                        .lockedAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request with the same key got there first
+                existing = recordRepository.findByScopeAndIdempotencyKey(scope, key);
+                if (existing.isEmpty()) {
+                    throw new IdempotencyKeyInUseException(key);
+                }
+            }
+        }
+
+        IdempotencyRecord record = existing.get();
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            return record;
+        }
+
+        // Still running elsewhere, unless its owner died mid-checkout
+        if (recordRepository.takeOver(record.getId(), now.minus(lockTimeout), now) == 0) {
+            throw new IdempotencyKeyInUseException(key);
+        }
+        record.setLockedAt(now);
+        return record;
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store response", e);
+        }
+    }
+
+    private <T> T read(IdempotencyRecord record, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(record.getResponseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response of idempotency key " + record.getId(), e);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public class IdempotencyKeyInUseException extends RuntimeException {
+        public IdempotencyKeyInUseException(String key) {
+            super("A request with Idempotency-Key " + key + " is still being processed, retry later");
+        }
+    }
+
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public class InvalidIdempotencyKeyException extends RuntimeException {
+        public InvalidIdempotencyKeyException(String message) {
+            super(message);
+        }
+    }
+}
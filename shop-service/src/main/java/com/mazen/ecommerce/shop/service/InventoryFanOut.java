@@ -0,0 +1,100 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.dto.StockLine;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Per-item inventory calls for the non-bulk checkout path, run on virtual threads with at most
+ * maxConcurrency calls in flight, so a cart costs about (items / maxConcurrency) inventory round
+ * trips instead of one per item.
+ */
+@Slf4j
+@Component
+public class InventoryFanOut {
+
+    private final InventoryClient inventoryClient;
+    private final OutboxService outboxService;
+    private final int maxConcurrency;
+
+    public InventoryFanOut(InventoryClient inventoryClient, OutboxService outboxService,
+                           @Value("${shop.inventory.fan-out.max-concurrency:8}") int maxConcurrency) {
+        this.inventoryClient = inventoryClient;
+        this.outboxService = outboxService;
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+    }
+
+    /**
+     * Decrements every line. After the first failure (out of stock, unknown SKU, inventory down) no further
+     * line is started and the calls already in flight are allowed to finish. Every line that was decremented, or
+     * may have been (timeout, 5xx), is then given back through the outbox (see OutboxRelay), so it comes back even
+     * if inventory is down right now. The restock revokes the decrements by their request id: inventory returns
+     * only what they actually took and turns away one that is still on its way.
+     *
+     * @return true when every line was decremented, false when none remains decremented
+     */
+    public boolean decreaseAll(List<StockLine> lines, String reference) {
+        String requestId = "fan-out-" + UUID.randomUUID();
+        List<StockLine> taken = Collections.synchronizedList(new ArrayList<>());
+        boolean allDecreased = runAll(lines, reference, line -> {
+            try {
+                inventoryClient.decreaseStock(line.getSku(), line.getQuantity(), reference, requestId);
+            } catch (FeignException.FeignClientException e) {
+                throw e; // rejected, nothing was taken
+            } catch (RuntimeException e) {
+                taken.add(line); // outcome unknown
+                throw e;
+            }
+            taken.add(line);
+        });
+
+        if (!allDecreased && !taken.isEmpty()) {
+            log.warn("Stock decrement for {} failed, returning {} lines that were or may have been decremented",
+                    reference, taken.size());
+            outboxService.restock(new ArrayList<>(taken), reference, requestId);
+        }
+        return allDecreased;
+    }
+
+    private boolean runAll(List<StockLine> lines, String reference, Consumer<StockLine> call) {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        AtomicBoolean failed = new AtomicBoolean();
+
+        // close() at the end of the try block waits for the calls still in flight
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (StockLine line : lines) {
+                permits.acquire();
+                if (failed.get()) {
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        call.accept(line);
+                    } catch (Exception e) {
+                        failed.set(true);
+                        log.warn("Inventory call failed for SKU {} ({}): {}", line.getSku(), reference, e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.set(true);
+        }
+        return !failed.get();
+    }
+}
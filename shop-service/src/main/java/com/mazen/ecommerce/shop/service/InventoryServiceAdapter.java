@@ -1,58 +1,103 @@
-//package com.mazen.ecommerce.shop.service;
-//
-//import com.mazen.ecommerce.shop.client.InventoryClient;
-//import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-//import io.github.resilience4j.retry.annotation.Retry;
-//import lombok.Data;
-//import lombok.RequiredArgsConstructor;
-//import lombok.extern.slf4j.Slf4j;
-//import org.springframework.stereotype.Component;
-//
-//@RequiredArgsConstructor
-//@Slf4j
-//@Component
-//public class InventoryServiceAdapter {
-//    private final InventoryClient inventoryClient;
-//
-//    // ====================== RESILIENCE METHODS ======================
-//
-//    // Wrap Feign call with resilience annotations
-//    // === INVENTORY RESILIENCE WRAPPERS ===
-//
-//    @CircuitBreaker(name = "inventoryService", fallbackMethod = "isInStockFallback")
-//    @Retry(name = "inventoryService")
-//    public boolean isInStockSafe(String sku, int quantity) {
-//        return inventoryClient.isInStock(sku, quantity);
-//    }
-//
-//    @CircuitBreaker(name = "inventoryService", fallbackMethod = "decreaseFallback")
-//    @Retry(name = "inventoryService")
-//    public void decreaseStockSafe(String sku, int quantity) {
-//        inventoryClient.decreaseStock(sku, quantity);
-//    }
-//
-//    @CircuitBreaker(name = "inventoryService", fallbackMethod = "increaseFallback")
-//    @Retry(name = "inventoryService")
-//    public void increaseStockSafe(String sku, int quantity) {
-//        inventoryClient.increaseStock(sku, quantity);
-//    }
-//
-//
-//
-//    // === Fallbacks ===
-//    public boolean isInStockFallback(String sku, int quantity, Throwable t) {
-//        log.error("Inventory unavailable for SKU {}, defaulting to false", sku, t);
-//        return false; // treat as out of stock
-//    }
-//
-//    public void decreaseFallback(String sku, int quantity, Throwable t) {
-//        log.error("Failed to decrease stock for SKU {}", sku, t);
-//        // fallback: do nothing → order creation will fail later
-//    }
-//
-//    public void increaseFallback(String sku, int quantity, Throwable t) {
-//        log.error("Failed to increase stock for SKU {}", sku, t);
-//        // fallback: log only, manual reconciliation may be needed
-//    }
-//
-//}
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.dto.*;
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resilience wrappers around the inventory calls. They live in their own bean so callers go through its
+ * proxy: called on {@code this}, the circuit breaker, retry and fallback annotations would never run.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Component
+public class InventoryServiceAdapter {
+    private final InventoryClient inventoryClient;
+
+    // ====================== RESILIENCE METHODS ======================
+
+    // Wrap Feign call with resilience annotations
+    // === INVENTORY RESILIENCE WRAPPERS ===
+
+    @CircuitBreaker(name = "inventoryService", fallbackMethod = "getProductsFallback")
+    @Retry(name = "inventoryService")
+    public Map<String, ProductResponse> getProductsSafe(List<String> skus) {
+        return inventoryClient.getProductsBySkus(new SkuBatchRequest(skus)).stream()
+                .collect(Collectors.toMap(ProductResponse::getSku, Function.identity()));
+    }
+
+    @CircuitBreaker(name = "inventoryService", fallbackMethod = "decreaseBulkFallback")
+    @Retry(name = "inventoryService")
+    public boolean decreaseStockBulkSafe(List<StockLine> lines, String reference) {
+        try {
+            inventoryClient.decreaseStockBulk(new BulkStockRequest(lines, reference, null));
+            return true;
+        } catch (FeignException.Conflict | FeignException.NotFound e) {
+            log.warn("Cart could not be reserved: {}", e.getMessage());
+            return false; // nothing was decremented, inventory rolled the whole cart back
+        }
+    }
+
+    @CircuitBreaker(name = "inventoryService", fallbackMethod = "reserveFallback")
+    @Retry(name = "inventoryService")
+    public boolean reserveStockSafe(String reservationKey, List<StockLine> lines) {
+        try {
+            // A reused key only counts when inventory reports a live hold for it
+            ReservationResponse reservation = inventoryClient.reserveStock(new ReserveStockRequest(reservationKey, lines, null));
+            if (reservation == null || !List.of("HELD", "CONFIRMED").contains(reservation.getStatus())) {
+                log.warn("Reservation {} is {}, not holding the cart", reservationKey,
+                        reservation == null ? "missing" : reservation.getStatus());
+                return false;
+            }
+            return true;
+        } catch (FeignException.Conflict | FeignException.NotFound e) {
+            log.warn("Cart could not be reserved: {}", e.getMessage());
+            return false; // nothing was held
+        }
+    }
+
+    @CircuitBreaker(name = "inventoryService", fallbackMethod = "confirmReservationFallback")
+    @Retry(name = "inventoryService")
+    public boolean confirmReservationSafe(String reservationKey) {
+        try {
+            inventoryClient.confirmReservation(reservationKey);
+            return true;
+        } catch (FeignException.Conflict e) {
+            return false; // expired or released before we got here
+        }
+    }
+
+
+    // === Fallbacks ===
+    public Map<String, ProductResponse> getProductsFallback(List<String> skus, Throwable t) {
+        log.error("Inventory unavailable for {} SKUs, treating them as out of stock", skus.size(), t);
+        return Map.of(); // treat as out of stock
+    }
+
+    public boolean decreaseBulkFallback(List<StockLine> lines, String reference, Throwable t) {
+        log.error("Inventory unavailable, cannot reserve {} cart lines ({})", lines.size(), reference, t);
+        return false; // treat as out of stock
+    }
+
+    public boolean reserveFallback(String reservationKey, List<StockLine> lines, Throwable t) {
+        log.error("Inventory unavailable, cannot reserve {}", reservationKey, t);
+        return false; // treat as out of stock
+    }
+
+    // The caller refunds the charge and releases the hold, so a confirm that never answered is treated as lapsed
+    public boolean confirmReservationFallback(String reservationKey, Throwable t) {
+        log.error("Failed to confirm reservation {}", reservationKey, t);
+        return false;
+    }
+
+}
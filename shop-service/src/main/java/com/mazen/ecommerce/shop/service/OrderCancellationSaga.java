@@ -0,0 +1,89 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.WalletClient;
+import com.mazen.ecommerce.shop.client.dto.BulkStockRequest;
+import com.mazen.ecommerce.shop.client.dto.StockLine;
+import com.mazen.ecommerce.shop.model.Order;
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.repository.OrderRepository;
+import com.mazen.ecommerce.shop.repository.PaymentRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaDefinition;
+import com.mazen.ecommerce.shop.service.saga.SagaStep;
+import com.mazen.ecommerce.shop.service.saga.SagaStepFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Gives a cancelled CONFIRMED order back (business key = order id): the charge is refunded and the units are
+ * restocked, in parallel. There is nothing to undo here, so a step that cannot be completed is recorded on the order.
+ */
+@Component
+public class OrderCancellationSaga implements SagaDefinition {
+
+    public static final String TYPE = "order-cancellation";
+
+    private final OrderRepository orderRepository;
+    private final InventoryClient inventoryClient;
+    private final List<List<SagaStep>> stages;
+
+    public OrderCancellationSaga(OrderRepository orderRepository, PaymentRepository paymentRepository,
+                                 InventoryClient inventoryClient, WalletClient walletClient) {
+        this.orderRepository = orderRepository;
+        this.inventoryClient = inventoryClient;
+        this.stages = List.of(List.of(
+                new RefundPaymentStep(orderRepository, paymentRepository, walletClient), new Restock()));
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public List<List<SagaStep>> stages() {
+        return stages;
+    }
+
+    @Override
+    public void onCompensated(SagaInstance saga) {
+        recordFailure(saga);
+    }
+
+    @Override
+    public void onFailed(SagaInstance saga) {
+        recordFailure(saga);
+    }
+
+    private void recordFailure(SagaInstance saga) {
+        Order order = order(saga);
+        order.setFailureReason("Cancellation incomplete, needs reconciliation: " + saga.getFailureReason());
+        orderRepository.save(order);
+    }
+
+    private Order order(SagaInstance saga) {
+        Long orderId = Long.valueOf(saga.getBusinessKey());
+        return orderRepository.findWithItemsById(orderId)
+                .orElseThrow(() -> new SagaStepFailedException("Order " + orderId + " no longer exists"));
+    }
+
+    // Inventory applies a bulk restock once per reference, so repeating it is safe
+    private class Restock implements SagaStep {
+
+        @Override
+        public String name() {
+            return "restock";
+        }
+
+        @Override
+        public void execute(SagaInstance saga) {
+            List<StockLine> lines = order(saga).getOrderItems().stream()
+                    .map(item -> new StockLine(item.getSku(), item.getQuantity()))
+                    .collect(Collectors.toList());
+            String reference = "order-" + saga.getBusinessKey() + "-cancel";
+            inventoryClient.increaseStockBulk(new BulkStockRequest(lines, reference, reference));
+        }
+    }
+}
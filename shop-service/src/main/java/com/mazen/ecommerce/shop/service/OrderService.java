@@ -1,8 +1,6 @@
 package com.mazen.ecommerce.shop.service;
 
 
-import com.mazen.ecommerce.shop.client.InventoryClient;
-import com.mazen.ecommerce.shop.client.WalletClient;
 import com.mazen.ecommerce.shop.client.dto.*;
 import com.mazen.ecommerce.shop.dto.order.CreateOrderRequest;
 import com.mazen.ecommerce.shop.dto.order.OrderItemResponse;
@@ -14,18 +12,21 @@ import com.mazen.ecommerce.shop.model.enums.PaymentStatus;
 import com.mazen.ecommerce.shop.repository.CartRepository;
 import com.mazen.ecommerce.shop.repository.OrderRepository;
 import com.mazen.ecommerce.shop.repository.PaymentRepository;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import com.mazen.ecommerce.shop.service.saga.SagaOrchestrator;
+import com.mazen.ecommerce.shop.service.saga.SagaWorker;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,10 +37,21 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final PaymentRepository paymentRepository;
     private final CartRepository cartRepository;
-    private final WalletClient walletClient;
-    private final InventoryClient inventoryClient;
-//    private final InventoryServiceAdapter inventoryServiceAdapter;
-//    private final WalletServiceAdapter walletServiceAdapter;
+    private final InventoryFanOut inventoryFanOut;
+    private final SagaOrchestrator sagaOrchestrator;
+    private final SagaWorker sagaWorker;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryServiceAdapter inventoryServiceAdapter;
+    private final WalletServiceAdapter walletServiceAdapter;
+
+    // Reserve/release the whole cart with one inventory call instead of a check + decrease per item
+    @Value("${inventory.bulk-reservation.enabled:true}")
+    private boolean bulkReservationEnabled;
+
+    // Hold the cart with a time-limited reservation that is confirmed once paid (takes precedence over bulk mode)
+    @Value("${inventory.reservation.enabled:true}")
+    private boolean reservationEnabled;
 
     public OrderResponse createOrder(Long userId, CreateOrderRequest request) throws IllegalAccessException {
         Cart cart = cartRepository.findById(request.getCartId())
@@ -53,13 +65,41 @@ public class OrderService {
             throw new EntityNotFoundException("Cannot create order from empty cart");
         }
 
-        // Check inventory before placing order
-        for (CartItem cartItem : cart.getCartItems()) {
-//            boolean inStock = inventoryClient.isInStock(cartItem.getSku(), cartItem.getQuantity());
-            boolean inStock = isInStockSafe(cartItem.getSku(), cartItem.getQuantity());
-            if (!inStock) {
-                //TODO See if it is possible to return JSON instead
-                throw new IllegalStateException("Product " + cartItem.getProductName() + " is out of stock!");
+        List<StockLine> stockLines = cart.getCartItems().stream()
+                .map(ci -> new StockLine(ci.getSku(), ci.getQuantity()))
+                .collect(Collectors.toList());
+
+        // Stable per checkout, so a retried reserve call returns the existing hold; also tags inventory's stock ledger
+        String reservationKey = "cart-" + cart.getId();
+
+        if (reservationEnabled) {
+            // Units not confirmed in time go back to stock on their own, even if the release below never arrives
+            if (!inventoryServiceAdapter.reserveStockSafe(reservationKey, stockLines)) {
+                throw new IllegalStateException("Some products in the cart are out of stock!");
+            }
+        } else if (bulkReservationEnabled) {
+            // Reserve all items at once: either every line is decremented or none is
+            if (!inventoryServiceAdapter.decreaseStockBulkSafe(stockLines, reservationKey)) {
+                throw new IllegalStateException("Some products in the cart are out of stock!");
+            }
+        } else {
+            // Check inventory before placing order (one batch lookup for the whole cart)
+            Map<String, ProductResponse> products = inventoryServiceAdapter.getProductsSafe(cart.getCartItems().stream()
+                    .map(CartItem::getSku)
+                    .collect(Collectors.toList()));
+            for (CartItem cartItem : cart.getCartItems()) {
+//                boolean inStock = inventoryClient.isInStock(cartItem.getSku(), cartItem.getQuantity());
+                ProductResponse product = products.get(cartItem.getSku());
+                boolean inStock = product != null && product.getStockQuantity() >= cartItem.getQuantity();
+                if (!inStock) {
+                    //TODO See if it is possible to return JSON instead
+                    throw new IllegalStateException("Product " + cartItem.getProductName() + " is out of stock!");
+                }
+            }
+
+            // Decrement the items concurrently; on the first failure the ones already taken are given back
+            if (!inventoryFanOut.decreaseAll(stockLines, reservationKey)) {
+                throw new IllegalStateException("Some products in the cart are out of stock!");
             }
         }
 
@@ -96,13 +136,6 @@ public class OrderService {
         order = orderRepository.save(order);
 
 
-        // After saving order → decrease stock
-        for (CartItem cartItem : cart.getCartItems()) {
-//            inventoryClient.decreaseStock(cartItem.getSku(), cartItem.getQuantity());
-            decreaseStockSafe(cartItem.getSku(), cartItem.getQuantity());
-        }
-
-
         Payment payment = Payment.builder()
                 .order(order)
                 .amount(order.getTotalAmount())
@@ -112,31 +145,50 @@ public class OrderService {
 
 
 
-        List<WalletResponse> wallets = getWallets(userId); // resilience wrapped
+        List<WalletResponse> wallets = walletServiceAdapter.getWallets(userId); // resilience wrapped
         if (wallets.isEmpty()) {
+            restoreStock(stockLines, reservationKey);
             throw new IllegalStateException("No wallets available for user " + userId);
         }
 
         // TODO Make it take the wallet that the user choose (Not just the first wallet)
-        TransactionResponse trx = withdrawFromWallet(wallets.get(0).getId(), totalAmount);
+        // Keyed by the cart like the reservation, so the retries below and a re-run checkout charge it only once
+        TransactionResponse trx = walletServiceAdapter.withdrawFromWallet(wallets.get(0).getId(), totalAmount, reservationKey + "-withdraw");
+        boolean refund = false;
         if (trx == null) {
             payment.setStatus(PaymentStatus.FAILED);
             order.setStatus(OrderStatus.CANCELLED);
-
-            // ROLLBACK: restore inventory
-            for (CartItem cartItem : cart.getCartItems()) {
-//                inventoryClient.increaseStock(cartItem.getSku(), cartItem.getQuantity());
-                increaseStockSafe(cartItem.getSku(), cartItem.getQuantity());
-            }
-
         } else {
             payment.setStatus(PaymentStatus.SUCCESS);
-            order.setStatus(OrderStatus.SHIPPED); //TODO Make it paid (NOTE: if the user wanna cancel, the money must get pack to his wallet)
+            payment.setWalletId(wallets.get(0).getId());
+            if (reservationEnabled && !inventoryServiceAdapter.confirmReservationSafe(reservationKey)) {
+                // Paid after the hold lapsed: the units went back to stock, so the charge is given back
+                log.warn("Order {} was paid but reservation {} could not be confirmed, refunding", order.getId(), reservationKey);
+                order.setStatus(OrderStatus.CANCELLED);
+                order.setFailureReason("The stock reservation lapsed before the payment went through, the charge is refunded");
+                refund = true;
+            } else {
+                order.setStatus(OrderStatus.SHIPPED); //TODO Make it paid (NOTE: if the user wanna cancel, the money must get pack to his wallet)
+            }
         }
 
-        paymentRepository.save(payment);
-        order.setPayment(payment);
-        orderRepository.save(order);
+        // The cancelled order and the commands that give its stock and money back are stored together (or not at all)
+        Order placedOrder = order;
+        boolean refundPayment = refund;
+        SagaInstance refundSaga = transactionTemplate.execute(status -> {
+            paymentRepository.save(payment);
+            placedOrder.setPayment(payment);
+            orderRepository.save(placedOrder);
+
+            if (placedOrder.getStatus() == OrderStatus.CANCELLED) {
+                // ROLLBACK: restore inventory (a no-op for a hold that already lapsed)
+                restoreStock(stockLines, reservationKey);
+            }
+            return refundPayment ? sagaOrchestrator.start(PaymentRefundSaga.TYPE, placedOrder.getId().toString()) : null;
+        });
+        if (refundSaga != null) {
+            sagaWorker.dispatch(refundSaga.getId());
+        }
 
 
         cartRepository.delete(cart);
@@ -144,6 +196,57 @@ public class OrderService {
         return toResponse(order);
     }
 
+    /**
+     * Async checkout: validates the cart, stores the order as PENDING and returns right away. Stock, payment
+     * and confirmation are handled in the background by a CheckoutSaga; poll the order for its status.
+     */
+    public OrderResponse createOrderAsync(Long userId, CreateOrderRequest request) throws IllegalAccessException {
+        Cart cart = cartRepository.findById(request.getCartId())
+                .orElseThrow(() -> new EntityNotFoundException("Cart not found with id: " + request.getCartId()));
+
+        if (!cart.getUserId().equals(userId)) {
+            throw new IllegalAccessException("Cart does not belong to user: " + userId);
+        }
+
+        if (cart.getCartItems().isEmpty()) {
+            throw new EntityNotFoundException("Cannot create order from empty cart");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Order order = Order.builder()
+                .userId(userId)
+                .status(OrderStatus.PENDING)
+                .totalAmount(cart.getTotal())
+                .createdAt(now)
+                .build();
+
+        order.setOrderItems(cart.getCartItems().stream()
+                .map(ci -> OrderItem.builder()
+                        .order(order)
+                        .sku(ci.getSku())
+                        .productName(ci.getProductName())
+                        .quantity(ci.getQuantity())
+                        .priceAtPurchase(ci.getUnitPrice())
+                        .build())
+                .collect(Collectors.toList()));
+        order.setPayment(Payment.builder()
+                .order(order)
+                .amount(order.getTotalAmount())
+                .status(PaymentStatus.PENDING)
+                .createdAt(now)
+                .build());
+
+        // The saga is stored with the order, so an accepted order is always checked out eventually
+        SagaInstance saga = transactionTemplate.execute(status -> {
+            Order saved = orderRepository.save(order);
+            cartRepository.delete(cart);
+            return sagaOrchestrator.start(CheckoutSaga.TYPE, saved.getId().toString());
+        });
+
+        sagaWorker.dispatch(saga.getId());
+        return toResponse(order);
+    }
+
     public List<OrderResponse> getOrdersByUserId(Long userId) {
         //TODO Check if the User Exists via Feign Client
 
@@ -172,16 +275,32 @@ public class OrderService {
             throw new OrderCancellationException("Order is already cancelled");
         }
 
+        if (sagaOrchestrator.isInFlight(orderId.toString())) {
+            throw new OrderCancellationException("Order is still being processed, try again shortly");
+        }
+
+        // A confirmed order was paid and its units taken: an OrderCancellationSaga refunds and restocks it
+        boolean giveBack = order.getStatus() == OrderStatus.CONFIRMED;
+
         // Update order status
         order.setStatus(OrderStatus.CANCELLED);
 
-        // Update payment status if exists
-        if (order.getPayment() != null) {
+        // Update payment status if exists (a refunded one ends up REFUNDED)
+        if (order.getPayment() != null && !giveBack) {
             order.getPayment().setStatus(PaymentStatus.FAILED);
-            paymentRepository.save(order.getPayment());
         }
 
-        order = orderRepository.save(order);
+        SagaInstance saga = transactionTemplate.execute(status -> {
+            if (order.getPayment() != null) {
+                paymentRepository.save(order.getPayment());
+            }
+            orderRepository.save(order);
+            return giveBack ? sagaOrchestrator.start(OrderCancellationSaga.TYPE, orderId.toString()) : null;
+        });
+
+        if (saga != null) {
+            sagaWorker.dispatch(saga.getId());
+        }
         return toResponse(order);
     }
 
@@ -189,6 +308,15 @@ public class OrderService {
 
     // ====================== HELPER METHODS ======================
 
+    // Queued in the outbox, so the stock comes back even if inventory is down right now (see OutboxRelay)
+    private void restoreStock(List<StockLine> stockLines, String reservationKey) {
+        if (reservationEnabled) {
+            outboxService.releaseReservation(reservationKey);
+        } else {
+            outboxService.restock(stockLines, reservationKey);
+        }
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public class OrderCancellationException extends RuntimeException {
         public OrderCancellationException(String message) {
@@ -214,6 +342,7 @@ public class OrderService {
                 .payment(order.getPayment() != null ? toResponse(order.getPayment()) : null)
                 .createdAt(order.getCreatedAt())
                 .totalItems(totalItems)
+                .failureReason(order.getFailureReason())
                 .build();
     }
 
@@ -239,70 +368,4 @@ public class OrderService {
                 .build();
     }
 
-    // ====================== RESILIENCE METHODS ======================
-    // TODO: Can be moved into a separate class later (WalletServiceAdapter)
-
-
-    // Wrap Feign call with resilience annotations
-    @CircuitBreaker(name = "walletService", fallbackMethod = "walletFallback")
-    @Retry(name = "walletService")
-    public List<WalletResponse> getWallets(Long userId) {
-        return walletClient.getUserWallet(userId);
-    }
-
-    @Retry(name = "walletService")
-    @CircuitBreaker(name = "walletService", fallbackMethod = "withdrawFallback")
-    public TransactionResponse withdrawFromWallet(Long walletId, BigDecimal amount) {
-        return walletClient.withdraw(walletId,
-                new CreateTransactionRequest(TransactionType.WITHDRAW, amount));
-    }
-
-    // === INVENTORY RESILIENCE WRAPPERS ===
-
-    @CircuitBreaker(name = "inventoryService", fallbackMethod = "isInStockFallback")
-    @Retry(name = "inventoryService")
-    public boolean isInStockSafe(String sku, int quantity) {
-        return inventoryClient.isInStock(sku, quantity);
-    }
-
-    @CircuitBreaker(name = "inventoryService", fallbackMethod = "decreaseFallback")
-    @Retry(name = "inventoryService")
-    public void decreaseStockSafe(String sku, int quantity) {
-        inventoryClient.decreaseStock(sku, quantity);
-    }
-
-    @CircuitBreaker(name = "inventoryService", fallbackMethod = "increaseFallback")
-    @Retry(name = "inventoryService")
-    public void increaseStockSafe(String sku, int quantity) {
-        inventoryClient.increaseStock(sku, quantity);
-    }
-
-
-    // === Fallbacks ===
-    public List<WalletResponse> walletFallback(Long userId, Throwable t) {
-        log.error("Wallet service unavailable for user {}", userId, t);
-        log.error("Fallback triggered: forcing order cancellation");
-        return List.of(); // empty list
-    }
-
-    public TransactionResponse withdrawFallback(Long walletId, BigDecimal amount, Throwable t) {
-        log.error("Wallet service unavailable, cannot withdraw from wallet {}", walletId, t);
-        return null; // gracefully handle
-    }
-
-    public boolean isInStockFallback(String sku, int quantity, Throwable t) {
-        log.error("Inventory unavailable for SKU {}, defaulting to false", sku, t);
-        return false; // treat as out of stock
-    }
-
-    public void decreaseFallback(String sku, int quantity, Throwable t) {
-        log.error("Failed to decrease stock for SKU {}", sku, t);
-        // fallback: do nothing → order creation will fail later
-    }
-
-    public void increaseFallback(String sku, int quantity, Throwable t) {
-        log.error("Failed to increase stock for SKU {}", sku, t);
-        // fallback: log only, manual reconciliation may be needed
-    }
-
 }
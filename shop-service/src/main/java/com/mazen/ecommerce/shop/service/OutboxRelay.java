@@ -0,0 +1,141 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.dto.BulkStockRequest;
+import com.mazen.ecommerce.shop.client.dto.ReservationKeysRequest;
+import com.mazen.ecommerce.shop.model.OutboxMessage;
+import com.mazen.ecommerce.shop.model.enums.OutboxCommandType;
+import com.mazen.ecommerce.shop.model.enums.OutboxStatus;
+import com.mazen.ecommerce.shop.repository.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox messages to inventory-service. Due messages are claimed with a lease (so several shop-service
+ * instances can relay safely), releases are sent together in one call and each restock in its own call.
+ * Both commands are idempotent on the inventory side, so a message delivered twice after a crash does no harm.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxService outboxService;
+    private final InventoryClient inventoryClient;
+
+    @Value("${shop.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${shop.outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${shop.outbox.retry-backoff:2s}")
+    private Duration retryBackoff;
+
+    @Value("${shop.outbox.max-retry-backoff:5m}")
+    private Duration maxRetryBackoff;
+
+    @Value("${shop.outbox.lease:1m}")
+    private Duration lease;
+
+    @Value("${shop.outbox.retention:7d}")
+    private Duration retention;
+
+    /**
+     * @return how many messages were delivered in this run
+     */
+    @Scheduled(fixedDelayString = "${shop.outbox.poll-interval-ms:1000}")
+    public int relayPending() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(lease);
+        List<OutboxMessage> claimed = outboxMessageRepository
+                .findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(OutboxStatus.PENDING, now, PageRequest.of(0, batchSize))
+                .stream()
+                .filter(message -> outboxMessageRepository.claim(message.getId(), now, leaseUntil) == 1)
+                .toList();
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<OutboxCommandType, List<OutboxMessage>> byType = claimed.stream()
+                .collect(Collectors.groupingBy(OutboxMessage::getType));
+
+        int sent = 0;
+        List<OutboxMessage> releases = byType.getOrDefault(OutboxCommandType.RELEASE_RESERVATION, List.of());
+        if (!releases.isEmpty()) {
+            try {
+                inventoryClient.releaseReservations(new ReservationKeysRequest(releases.stream()
+                        .map(OutboxMessage::getReference)
+                        .distinct()
+                        .toList()));
+                releases.forEach(this::markSent);
+                sent += releases.size();
+            } catch (RuntimeException e) {
+                releases.forEach(message -> scheduleRetry(message, e));
+            }
+        }
+
+        for (OutboxMessage restock : byType.getOrDefault(OutboxCommandType.RESTOCK, List.of())) {
+            try {
+                inventoryClient.increaseStockBulk(
+                        new BulkStockRequest(outboxService.readStockLines(restock), restock.getReference(),
+                                "outbox-" + restock.getId(), restock.getRevokedRequestId()));
+                markSent(restock);
+                sent++;
+            } catch (RuntimeException e) {
+                scheduleRetry(restock, e);
+            }
+        }
+        return sent;
+    }
+
+    @Scheduled(fixedDelayString = "${shop.outbox.cleanup-interval-ms:3600000}")
+    public void deleteDelivered() {
+        int deleted = outboxMessageRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Deleted {} delivered outbox messages", deleted);
+        }
+    }
+
+    private void markSent(OutboxMessage message) {
+        message.setStatus(OutboxStatus.SENT);
+        message.setSentAt(LocalDateTime.now());
+        message.setAttempts(message.getAttempts() + 1);
+        message.setLastError(null);
+        outboxMessageRepository.save(message);
+    }
+
+    private void scheduleRetry(OutboxMessage message, RuntimeException e) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(e.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            // Dead letter: kept as FAILED for manual handling instead of being retried forever
+            log.error("Outbox message {} ({} {}) failed {} times, giving up",
+                    message.getId(), message.getType(), message.getReference(), attempts, e);
+            message.setStatus(OutboxStatus.FAILED);
+        } else {
+            long backoffMs = Math.min(retryBackoff.toMillis() << Math.min(attempts - 1, 20), maxRetryBackoff.toMillis());
+            log.warn("Outbox message {} ({} {}) failed (attempt {}), retrying in {} ms: {}",
+                    message.getId(), message.getType(), message.getReference(), attempts, backoffMs, e.getMessage());
+            message.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs * 1_000_000));
+        }
+        outboxMessageRepository.save(message);
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 500 ? error : error.substring(0, 500);
+    }
+}
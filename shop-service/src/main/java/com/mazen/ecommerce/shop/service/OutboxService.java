@@ -0,0 +1,68 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazen.ecommerce.shop.client.dto.StockLine;
+import com.mazen.ecommerce.shop.model.OutboxMessage;
+import com.mazen.ecommerce.shop.model.enums.OutboxCommandType;
+import com.mazen.ecommerce.shop.model.enums.OutboxStatus;
+import com.mazen.ecommerce.shop.repository.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes commands for inventory into the outbox. Call it inside the transaction that changes the order,
+ * so the command is stored if and only if the order change is; OutboxRelay delivers it afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private static final TypeReference<List<StockLine>> STOCK_LINES = new TypeReference<>() {
+    };
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public OutboxMessage releaseReservation(String reservationKey) {
+        return enqueue(OutboxCommandType.RELEASE_RESERVATION, reservationKey, null, null);
+    }
+
+    // Delivered with the message id as its request id: inventory applies a redelivery once, yet the same cart can be restocked again
+    public OutboxMessage restock(List<StockLine> lines, String reference) {
+        return restock(lines, reference, null);
+    }
+
+    // Gives back only what the decrements sent with revokedRequestId took, and turns away any still on their way
+    public OutboxMessage restock(List<StockLine> lines, String reference, String revokedRequestId) {
+        try {
+            return enqueue(OutboxCommandType.RESTOCK, reference, objectMapper.writeValueAsString(lines), revokedRequestId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stock lines for " + reference, e);
+        }
+    }
+
+    List<StockLine> readStockLines(OutboxMessage message) {
+        try {
+            return objectMapper.readValue(message.getPayload(), STOCK_LINES);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed payload in outbox message " + message.getId(), e);
+        }
+    }
+
+    private OutboxMessage enqueue(OutboxCommandType type, String reference, String payload, String revokedRequestId) {
+        return outboxMessageRepository.save(OutboxMessage.builder()
+                .type(type)
+                .reference(reference)
+                .payload(payload)
+                .revokedRequestId(revokedRequestId)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+    }
+}
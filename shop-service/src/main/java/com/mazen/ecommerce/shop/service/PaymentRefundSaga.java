@@ -0,0 +1,59 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.WalletClient;
+import com.mazen.ecommerce.shop.model.Order;
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.repository.OrderRepository;
+import com.mazen.ecommerce.shop.repository.PaymentRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaDefinition;
+import com.mazen.ecommerce.shop.service.saga.SagaStep;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Refunds an order that was charged but could not be completed (business key = order id), e.g. a checkout whose
+ * stock reservation lapsed before the payment went through. The units are already back in stock, so only the
+ * money is given back.
+ */
+@Component
+public class PaymentRefundSaga implements SagaDefinition {
+
+    public static final String TYPE = "payment-refund";
+
+    private final OrderRepository orderRepository;
+    private final List<List<SagaStep>> stages;
+
+    public PaymentRefundSaga(OrderRepository orderRepository, PaymentRepository paymentRepository,
+                             WalletClient walletClient) {
+        this.orderRepository = orderRepository;
+        this.stages = List.of(List.of(new RefundPaymentStep(orderRepository, paymentRepository, walletClient)));
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public List<List<SagaStep>> stages() {
+        return stages;
+    }
+
+    @Override
+    public void onCompensated(SagaInstance saga) {
+        recordFailure(saga);
+    }
+
+    @Override
+    public void onFailed(SagaInstance saga) {
+        recordFailure(saga);
+    }
+
+    private void recordFailure(SagaInstance saga) {
+        orderRepository.findById(Long.valueOf(saga.getBusinessKey())).ifPresent(order -> {
+            order.setFailureReason("Refund incomplete, needs reconciliation: " + saga.getFailureReason());
+            orderRepository.save(order);
+        });
+    }
+}
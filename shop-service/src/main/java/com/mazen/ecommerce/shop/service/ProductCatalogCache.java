@@ -0,0 +1,76 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.dto.CatalogChangesResponse;
+import com.mazen.ecommerce.shop.client.dto.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Near cache of inventory products (name, price) for adding items to carts. Entries live for a short TTL
+ * and are dropped early when inventory-service reports a catalog change for the SKU. Stock is never
+ * read from here: checkout always asks inventory.
+ */
+@Slf4j
+@Component
+public class ProductCatalogCache {
+
+    private static final int POLL_PAGE_SIZE = 500;
+
+    private final InventoryClient inventoryClient;
+    private final Cache<String, ProductResponse> cache;
+    private final boolean enabled;
+
+    private long lastChangeId = -1; // only touched by the scheduler thread
+
+    public ProductCatalogCache(InventoryClient inventoryClient,
+                               MeterRegistry meterRegistry,
+                               @Value("${shop.product-cache.enabled:true}") boolean enabled,
+                               @Value("${shop.product-cache.max-size:5000}") long maxSize,
+                               @Value("${shop.product-cache.ttl:30s}") Duration ttl) {
+        this.inventoryClient = inventoryClient;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "shop.product-catalog");
+    }
+
+    public ProductResponse getProduct(String sku) {
+        if (!enabled) {
+            return inventoryClient.getProductBySku(sku);
+        }
+        // Concurrent adds of the same SKU share one call to inventory
+        return cache.get(sku, inventoryClient::getProductBySku);
+    }
+
+    @Scheduled(fixedDelayString = "${shop.product-cache.poll-interval-ms:5000}")
+    public void pollCatalogChanges() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            CatalogChangesResponse changes;
+            do {
+                changes = inventoryClient.getCatalogChanges(lastChangeId, POLL_PAGE_SIZE);
+                cache.invalidateAll(changes.getSkus());
+                lastChangeId = changes.getLastChangeId();
+            } while (changes.isHasMore());
+        } catch (Exception e) {
+            // Inventory unreachable: entries still expire on their TTL
+            log.warn("Could not poll catalog changes: {}", e.getMessage());
+        }
+    }
+}
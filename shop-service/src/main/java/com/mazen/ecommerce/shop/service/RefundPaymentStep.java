@@ -0,0 +1,51 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.WalletClient;
+import com.mazen.ecommerce.shop.client.dto.CreateTransactionRequest;
+import com.mazen.ecommerce.shop.client.dto.TransactionType;
+import com.mazen.ecommerce.shop.model.Payment;
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.model.enums.PaymentStatus;
+import com.mazen.ecommerce.shop.repository.OrderRepository;
+import com.mazen.ecommerce.shop.repository.PaymentRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaStep;
+import com.mazen.ecommerce.shop.service.saga.SagaStepFailedException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Refunds the successful payment of an order (business key = order id). The deposit is keyed like a checkout
+ * refund (see CheckoutSaga.ChargeWallet), so an order is never refunded twice, and the status check makes a
+ * repeat after success a no-op.
+ */
+@RequiredArgsConstructor
+class RefundPaymentStep implements SagaStep {
+
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final WalletClient walletClient;
+
+    @Override
+    public String name() {
+        return "refund-payment";
+    }
+
+    @Override
+    public void execute(SagaInstance saga) {
+        Long orderId = Long.valueOf(saga.getBusinessKey());
+        Payment payment = orderRepository.findWithItemsById(orderId)
+                .orElseThrow(() -> new SagaStepFailedException("Order " + orderId + " no longer exists"))
+                .getPayment();
+        if (payment == null || payment.getStatus() != PaymentStatus.SUCCESS) {
+            return; // nothing was charged
+        }
+        if (payment.getWalletId() == null) {
+            throw new SagaStepFailedException("Payment " + payment.getId() + " has no wallet recorded");
+        }
+
+        walletClient.deposit(payment.getWalletId(),
+                new CreateTransactionRequest(TransactionType.DEPOSIT, payment.getAmount()),
+                CheckoutSaga.refundKey(payment));
+        payment.setStatus(PaymentStatus.REFUNDED);
+        paymentRepository.save(payment);
+    }
+}
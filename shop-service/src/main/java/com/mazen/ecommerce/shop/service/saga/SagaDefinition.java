@@ -0,0 +1,27 @@
+package com.mazen.ecommerce.shop.service.saga;
+
+import com.mazen.ecommerce.shop.model.SagaInstance;
+
+import java.util.List;
+
+/**
+ * The shape of a saga: stages run one after the other, the steps of a stage are independent and run in parallel.
+ * The hooks run in the same transaction that records the outcome, and may run again after a crash.
+ */
+public interface SagaDefinition {
+
+    String type();
+
+    List<List<SagaStep>> stages();
+
+    default void onCompleted(SagaInstance saga) {
+    }
+
+    // Failed and every completed step was undone; saga.getFailureReason() says why
+    default void onCompensated(SagaInstance saga) {
+    }
+
+    // Could not be undone either, someone has to look at the step logs
+    default void onFailed(SagaInstance saga) {
+    }
+}
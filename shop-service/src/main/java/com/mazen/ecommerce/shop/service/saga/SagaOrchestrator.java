@@ -0,0 +1,354 @@
+package com.mazen.ecommerce.shop.service.saga;
+
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.model.SagaStepLog;
+import com.mazen.ecommerce.shop.model.enums.SagaStatus;
+import com.mazen.ecommerce.shop.model.enums.SagaStepStatus;
+import com.mazen.ecommerce.shop.repository.SagaInstanceRepository;
+import com.mazen.ecommerce.shop.repository.SagaStepLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs sagas described by {@link SagaDefinition}s. Every state change is saved on its own before the next remote
+ * call goes out, so no database transaction stays open across calls, and a waiting saga holds no thread: it is
+ * only a row with a nextAttemptAt that SagaWorker picks up (again after a crash, once the lease runs out).
+ * <p>
+ * A stage whose steps all succeed moves the saga on. A step rejected for good, or a stage still failing after
+ * max-attempts, turns the saga around: the steps that were done are compensated, latest stage first.
+ */
+@Slf4j
+@Service
+public class SagaOrchestrator {
+
+    private final SagaInstanceRepository sagaRepository;
+    private final SagaStepLogRepository stepLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, SagaDefinition> definitions;
+
+    @Value("${shop.saga.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${shop.saga.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    @Value("${shop.saga.max-retry-backoff:1m}")
+    private Duration maxRetryBackoff;
+
+    public SagaOrchestrator(SagaInstanceRepository sagaRepository,
+                            SagaStepLogRepository stepLogRepository,
+                            TransactionTemplate transactionTemplate,
+                            List<SagaDefinition> definitions) {
+        this.sagaRepository = sagaRepository;
+        this.stepLogRepository = stepLogRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.definitions = definitions.stream()
+                .collect(Collectors.toMap(SagaDefinition::type, Function.identity()));
+    }
+
+    /**
+     * Registers a saga, due right away. Joins the caller's transaction, so it is stored together with the change
+     * that starts it. Starting the same type for the same business key again returns the existing saga.
+     */
+    public SagaInstance start(String type, String businessKey) {
+        if (!definitions.containsKey(type)) {
+            throw new IllegalArgumentException("Unknown saga type: " + type);
+        }
+
+        return sagaRepository.findByTypeAndBusinessKey(type, businessKey)
+                .orElseGet(() -> sagaRepository.save(SagaInstance.builder()
+                        .type(type)
+                        .businessKey(businessKey)
+                        .status(SagaStatus.RUNNING)
+                        .currentStage(0)
+                        .attempts(0)
+                        .nextAttemptAt(LocalDateTime.now())
+                        .build()));
+    }
+
+    public boolean isInFlight(String businessKey) {
+        return sagaRepository.existsByBusinessKeyAndNextAttemptAtIsNotNull(businessKey);
+    }
+
+    // Runs as far as possible; a transient failure schedules the saga for a later attempt
+    public void process(Long sagaId) {
+        SagaInstance saga = sagaRepository.findById(sagaId).orElse(null);
+        if (saga == null || saga.getNextAttemptAt() == null) {
+            return;
+        }
+
+        SagaDefinition definition = definitions.get(saga.getType());
+        Map<String, SagaStepLog> logs = new ConcurrentHashMap<>();
+        stepLogRepository.findBySagaIdOrderByIdAsc(sagaId).forEach(stepLog -> logs.put(stepLog.getStepName(), stepLog));
+
+        try {
+            run(saga, definition, logs);
+        } catch (RuntimeException e) {
+            if (scheduleRetry(saga, definition, e)) {
+                return;
+            }
+
+            // Gave up on moving forward: undo what was done
+            log.error("Saga {} ({} {}): giving up on stage {} after {} attempts",
+                    saga.getId(), saga.getType(), saga.getBusinessKey(), saga.getCurrentStage(), saga.getAttempts(), e);
+            beginCompensation(saga, "Gave up after " + saga.getAttempts() + " attempts: " + e.getMessage());
+            try {
+                run(saga, definition, logs);
+            } catch (RuntimeException again) {
+                scheduleRetry(saga, definition, again);
+            }
+        }
+    }
+
+    private void run(SagaInstance saga, SagaDefinition definition, Map<String, SagaStepLog> logs) {
+        if (saga.getStatus() == SagaStatus.RUNNING) {
+            runForward(saga, definition, logs);
+        }
+        if (saga.getStatus() == SagaStatus.COMPENSATING) {
+            compensate(saga, definition, logs);
+        }
+    }
+
+    private void runForward(SagaInstance saga, SagaDefinition definition, Map<String, SagaStepLog> logs) {
+        List<List<SagaStep>> stages = definition.stages();
+        while (saga.getCurrentStage() < stages.size()) {
+            int stage = saga.getCurrentStage();
+            List<SagaStep> remaining = stages.get(stage).stream()
+                    .filter(step -> statusOf(logs, step) != SagaStepStatus.SUCCEEDED)
+                    .toList();
+
+            Map<SagaStep, RuntimeException> failures = runAll(remaining, step -> execute(saga, stage, step, logs));
+            RuntimeException rejected = failures.values().stream()
+                    .filter(SagaStepFailedException.class::isInstance)
+                    .findFirst()
+                    .orElse(null);
+            if (rejected != null) {
+                beginCompensation(saga, rejected.getMessage());
+                return;
+            }
+            if (!failures.isEmpty()) {
+                throw failures.values().iterator().next();
+            }
+
+            saga.setCurrentStage(stage + 1);
+            saga.setAttempts(0); // the attempt counter is per stage
+            sagaRepository.save(saga);
+        }
+
+        finish(saga, SagaStatus.COMPLETED, definition::onCompleted);
+    }
+
+    private void execute(SagaInstance saga, int stage, SagaStep step, Map<String, SagaStepLog> logs) {
+        SagaStepLog stepLog = logs.computeIfAbsent(step.name(), name -> SagaStepLog.builder()
+                .sagaId(saga.getId())
+                .stepName(name)
+                .stage(stage)
+                .status(SagaStepStatus.PENDING)
+                .attempts(0)
+                .build());
+
+        // Sent before, but the worker died before recording the outcome
+        if (stepLog.getStatus() == SagaStepStatus.STARTED && !step.idempotent()) {
+            throw SagaStepFailedException.outcomeUnknown("Outcome of step " + step.name() + " is unknown");
+        }
+
+        stepLog.setStatus(SagaStepStatus.STARTED);
+        stepLog.setAttempts(stepLog.getAttempts() + 1);
+        stepLog.setStartedAt(LocalDateTime.now());
+        stepLogRepository.save(stepLog);
+
+        try {
+            step.execute(saga);
+        } catch (SagaStepFailedException e) {
+            // An unknown outcome stays STARTED: it is not compensated and ends the saga as FAILED
+            record(stepLog, e.isOutcomeUnknown() ? SagaStepStatus.STARTED : SagaStepStatus.FAILED, e);
+            throw e;
+        } catch (RuntimeException e) {
+            record(stepLog, SagaStepStatus.PENDING, e);
+            throw e;
+        }
+        record(stepLog, SagaStepStatus.SUCCEEDED, null);
+    }
+
+    private void compensate(SagaInstance saga, SagaDefinition definition, Map<String, SagaStepLog> logs) {
+        List<List<SagaStep>> stages = definition.stages();
+        for (int stage = stages.size() - 1; stage >= 0; stage--) {
+            List<SagaStep> toUndo = stages.get(stage).stream()
+                    .filter(step -> needsCompensation(step, logs.get(step.name())))
+                    .toList();
+
+            Map<SagaStep, RuntimeException> failures = runAll(toUndo, step -> undo(saga, step, logs.get(step.name())));
+            // Compensations cannot be rejected, only left in an unknown state
+            RuntimeException unknown = failures.values().stream()
+                    .filter(SagaStepFailedException.class::isInstance)
+                    .findFirst()
+                    .orElse(null);
+            if (unknown != null) {
+                fail(saga, definition, saga.getFailureReason() + "; " + unknown.getMessage());
+                return;
+            }
+            if (!failures.isEmpty()) {
+                throw failures.values().iterator().next();
+            }
+        }
+
+        // A non-idempotent step that was sent without a recorded outcome could not be undone either
+        boolean unresolved = stages.stream()
+                .flatMap(List::stream)
+                .anyMatch(step -> !step.idempotent() && statusOf(logs, step) == SagaStepStatus.STARTED);
+        if (unresolved) {
+            fail(saga, definition, saga.getFailureReason());
+            return;
+        }
+
+        finish(saga, SagaStatus.COMPENSATED, definition::onCompensated);
+    }
+
+    private boolean needsCompensation(SagaStep step, SagaStepLog stepLog) {
+        if (stepLog == null) {
+            return false;
+        }
+        return switch (stepLog.getStatus()) {
+            case SUCCEEDED, COMPENSATING -> true;
+            // Sent at least once, so it may have been applied even though the call failed
+            case STARTED, PENDING -> step.idempotent() && stepLog.getAttempts() > 0;
+            case FAILED, COMPENSATED -> false;
+        };
+    }
+
+    private void undo(SagaInstance saga, SagaStep step, SagaStepLog stepLog) {
+        if (stepLog.getStatus() == SagaStepStatus.COMPENSATING && !step.idempotent()) {
+            throw SagaStepFailedException.outcomeUnknown("Outcome of undoing step " + step.name() + " is unknown");
+        }
+
+        SagaStepStatus before = stepLog.getStatus();
+        stepLog.setStatus(SagaStepStatus.COMPENSATING);
+        stepLogRepository.save(stepLog);
+
+        try {
+            step.compensate(saga);
+        } catch (SagaStepFailedException e) {
+            record(stepLog, SagaStepStatus.COMPENSATING, e);
+            throw e;
+        } catch (RuntimeException e) {
+            record(stepLog, before, e); // nothing was undone, try again later
+            throw e;
+        }
+        record(stepLog, SagaStepStatus.COMPENSATED, null);
+    }
+
+    // Steps of one stage are independent, so they run in parallel; waits until all of them are done
+    private Map<SagaStep, RuntimeException> runAll(List<SagaStep> steps, Consumer<SagaStep> action) {
+        Map<SagaStep, RuntimeException> failures = new ConcurrentHashMap<>();
+        if (steps.size() == 1) {
+            try {
+                action.accept(steps.get(0));
+            } catch (RuntimeException e) {
+                failures.put(steps.get(0), e);
+            }
+            return failures;
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SagaStep step : steps) {
+                executor.execute(() -> {
+                    try {
+                        action.accept(step);
+                    } catch (RuntimeException e) {
+                        failures.put(step, e);
+                    }
+                });
+            }
+        }
+
+        // In declaration order, so the reported failure does not depend on timing
+        Map<SagaStep, RuntimeException> ordered = new LinkedHashMap<>();
+        steps.stream().filter(failures::containsKey).forEach(step -> ordered.put(step, failures.get(step)));
+        return ordered;
+    }
+
+    private void beginCompensation(SagaInstance saga, String reason) {
+        log.warn("Saga {} ({} {}) failed in stage {}, compensating: {}",
+                saga.getId(), saga.getType(), saga.getBusinessKey(), saga.getCurrentStage(), reason);
+        saga.setStatus(SagaStatus.COMPENSATING);
+        saga.setFailureReason(truncate(reason));
+        saga.setAttempts(0);
+        sagaRepository.save(saga);
+    }
+
+    /**
+     * @return false when a running saga has used up its attempts and should be compensated instead
+     */
+    private boolean scheduleRetry(SagaInstance saga, SagaDefinition definition, RuntimeException e) {
+        int attempts = saga.getAttempts() + 1;
+        saga.setAttempts(attempts);
+
+        if (attempts >= maxAttempts) {
+            if (saga.getStatus() == SagaStatus.RUNNING) {
+                return false;
+            }
+            log.error("Saga {} ({} {}): compensation gave up after {} attempts",
+                    saga.getId(), saga.getType(), saga.getBusinessKey(), attempts, e);
+            fail(saga, definition, saga.getFailureReason() + "; compensation failed: " + e.getMessage());
+            return true;
+        }
+
+        long backoffMs = Math.min(retryBackoff.toMillis() << Math.min(attempts - 1, 20), maxRetryBackoff.toMillis());
+        log.warn("Saga {} ({} {}): {} stage {} failed (attempt {}), retrying in {} ms: {}",
+                saga.getId(), saga.getType(), saga.getBusinessKey(), saga.getStatus(), saga.getCurrentStage(),
+                attempts, backoffMs, e.getMessage());
+        saga.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs * 1_000_000));
+        saga.setLeaseUntil(null);
+        sagaRepository.save(saga);
+        return true;
+    }
+
+    private void fail(SagaInstance saga, SagaDefinition definition, String reason) {
+        log.error("Saga {} ({} {}) failed and needs manual handling: {}", saga.getId(), saga.getType(), saga.getBusinessKey(), reason);
+        saga.setFailureReason(truncate(reason));
+        finish(saga, SagaStatus.FAILED, definition::onFailed);
+    }
+
+    // The hook and the final status are stored together; the hook runs again if the worker dies before that
+    private void finish(SagaInstance saga, SagaStatus status, Consumer<SagaInstance> hook) {
+        saga.setStatus(status);
+        saga.setNextAttemptAt(null);
+        saga.setLeaseUntil(null);
+        transactionTemplate.executeWithoutResult(tx -> {
+            hook.accept(saga);
+            sagaRepository.save(saga);
+        });
+    }
+
+    private void record(SagaStepLog stepLog, SagaStepStatus status, RuntimeException error) {
+        stepLog.setStatus(status);
+        stepLog.setLastError(error == null ? null : truncate(error.getMessage()));
+        if (status == SagaStepStatus.SUCCEEDED || status == SagaStepStatus.FAILED || status == SagaStepStatus.COMPENSATED) {
+            stepLog.setFinishedAt(LocalDateTime.now());
+        }
+        stepLogRepository.save(stepLog);
+    }
+
+    private static SagaStepStatus statusOf(Map<String, SagaStepLog> logs, SagaStep step) {
+        SagaStepLog stepLog = logs.get(step.name());
+        return stepLog == null ? null : stepLog.getStatus();
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -0,0 +1,30 @@
+package com.mazen.ecommerce.shop.service.saga;
+
+import com.mazen.ecommerce.shop.model.SagaInstance;
+
+/**
+ * One remote action of a saga and the action that undoes it.
+ * <p>
+ * {@link #execute} throws {@link SagaStepFailedException} when the action was rejected for good (the saga is then
+ * compensated) and any other exception when it may succeed later (the stage is retried with backoff). A step that
+ * is not {@link #idempotent()} must only throw the latter when it knows nothing was applied.
+ */
+public interface SagaStep {
+
+    // Unique within its definition, stored in SagaStepLog
+    String name();
+
+    void execute(SagaInstance saga);
+
+    // Called for steps that succeeded, or may have (idempotent steps that were sent); must tolerate both
+    default void compensate(SagaInstance saga) {
+    }
+
+    /**
+     * Whether execute and compensate are safe to send again when an earlier attempt's outcome is unknown
+     * (timeout, crash). A non-idempotent step found half-done is never repeated: the saga stops for reconciliation.
+     */
+    default boolean idempotent() {
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mazen.ecommerce.shop.service.saga;
+
+import lombok.Getter;
+
+// A step was rejected for good (out of stock, payment declined), retrying it would not help
+@Getter
+public class SagaStepFailedException extends RuntimeException {
+
+    // The call may have been applied (no response, or a crash mid-call): it is neither repeated nor undone
+    private final boolean outcomeUnknown;
+
+    public SagaStepFailedException(String message) {
+        this(message, false);
+    }
+
+    private SagaStepFailedException(String message, boolean outcomeUnknown) {
+        super(message);
+        this.outcomeUnknown = outcomeUnknown;
+    }
+
+    public static SagaStepFailedException outcomeUnknown(String message) {
+        return new SagaStepFailedException(message + ", needs reconciliation", true);
+    }
+}
@@ -0,0 +1,81 @@
+package com.mazen.ecommerce.shop.service.saga;
+
+import com.mazen.ecommerce.shop.repository.SagaInstanceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drives sagas. The sagas table is the queue: due sagas are claimed with a lease (so several shop-service
+ * instances can poll safely, and a saga left behind by a crashed instance is picked up once its lease runs out)
+ * and handed to a fixed pool of workers. Thousands of sagas in flight only mean rows waiting for their turn.
+ */
+@Slf4j
+@Component
+public class SagaWorker {
+
+    private final SagaInstanceRepository sagaRepository;
+    private final SagaOrchestrator sagaOrchestrator;
+    private final ExecutorService workers;
+    private final Semaphore idleWorkers;
+    private final Duration lease;
+
+    public SagaWorker(SagaInstanceRepository sagaRepository,
+                      SagaOrchestrator sagaOrchestrator,
+                      @Value("${shop.saga.workers:4}") int workers,
+                      @Value("${shop.saga.lease:2m}") Duration lease) {
+        this.sagaRepository = sagaRepository;
+        this.sagaOrchestrator = sagaOrchestrator;
+        this.workers = Executors.newFixedThreadPool(workers);
+        this.idleWorkers = new Semaphore(workers);
+        this.lease = lease;
+    }
+
+    @Scheduled(fixedDelayString = "${shop.saga.poll-interval-ms:500}")
+    public void pollDueSagas() {
+        int idle = idleWorkers.availablePermits();
+        if (idle == 0) {
+            return;
+        }
+        sagaRepository.findDueForProcessing(LocalDateTime.now(), PageRequest.of(0, idle))
+                .forEach(this::dispatch);
+    }
+
+    // Also called right after a saga is started, so an idle pipeline does not wait for the next poll
+    public void dispatch(Long sagaId) {
+        if (!idleWorkers.tryAcquire()) {
+            return; // the poller picks the saga up once a worker is free
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (sagaRepository.claim(sagaId, now, now.plus(lease)) == 0) {
+            idleWorkers.release(); // another worker or instance got it first
+            return;
+        }
+
+        workers.execute(() -> {
+            try {
+                sagaOrchestrator.process(sagaId);
+            } catch (Exception e) {
+                // The lease runs out and the saga is picked up again
+                log.error("Saga {} failed unexpectedly", sagaId, e);
+            } finally {
+                idleWorkers.release();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
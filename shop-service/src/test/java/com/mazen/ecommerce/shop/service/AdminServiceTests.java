@@ -0,0 +1,133 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.WalletClient;
+import com.mazen.ecommerce.shop.dto.order.OrderResponse;
+import com.mazen.ecommerce.shop.dto.order.UpdateOrderStatusRequest;
+import com.mazen.ecommerce.shop.model.Order;
+import com.mazen.ecommerce.shop.model.OrderItem;
+import com.mazen.ecommerce.shop.model.Payment;
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.model.enums.OrderStatus;
+import com.mazen.ecommerce.shop.model.enums.PaymentStatus;
+import com.mazen.ecommerce.shop.repository.OrderRepository;
+import com.mazen.ecommerce.shop.repository.SagaInstanceRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaOrchestrator;
+import com.mazen.ecommerce.shop.service.saga.SagaWorker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@Import({AdminService.class, SagaOrchestrator.class, CheckoutSaga.class, OrderCancellationSaga.class, PaymentRefundSaga.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AdminServiceTests {
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private SagaOrchestrator sagaOrchestrator;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SagaInstanceRepository sagaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    @MockitoBean
+    private WalletClient walletClient;
+
+    @MockitoBean
+    private SagaWorker sagaWorker;
+
+    @BeforeEach
+    void setUp() {
+        sagaRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void cancellingAConfirmedOrderRefundsAndRestocksIt() {
+        Long id = order(OrderStatus.CONFIRMED, PaymentStatus.SUCCESS);
+
+        OrderResponse response = cancel(id);
+
+        assertEquals(OrderStatus.CANCELLED, response.getStatus());
+        assertEquals(PaymentStatus.SUCCESS, reload(id).getPayment().getStatus()); // not overwritten with FAILED
+        SagaInstance saga = sagaRepository.findByTypeAndBusinessKey(OrderCancellationSaga.TYPE, id.toString())
+                .orElseThrow();
+        verify(sagaWorker).dispatch(saga.getId());
+
+        sagaOrchestrator.process(saga.getId());
+
+        assertEquals(PaymentStatus.REFUNDED, reload(id).getPayment().getStatus());
+        verify(walletClient).deposit(eq(5L), any(), anyString());
+        verify(inventoryClient).increaseStockBulk(argThat(r -> r.getReference().equals("order-" + id + "-cancel")));
+    }
+
+    @Test
+    void cancellingAnUnpaidOrderOnlyFailsThePayment() {
+        Long id = order(OrderStatus.PENDING, PaymentStatus.PENDING);
+
+        cancel(id);
+
+        assertEquals(PaymentStatus.FAILED, reload(id).getPayment().getStatus());
+        assertTrue(sagaRepository.findAll().isEmpty());
+        verifyNoInteractions(walletClient, inventoryClient);
+    }
+
+    // The web layer keeps a session open for the request (open-in-view), so the order's items load lazily
+    private OrderResponse cancel(Long id) {
+        return transactionTemplate.execute(status ->
+                adminService.updateOrderStatus(id, UpdateOrderStatusRequest.builder().status(OrderStatus.CANCELLED).build()));
+    }
+
+    private Long order(OrderStatus status, PaymentStatus paymentStatus) {
+        Order order = Order.builder()
+                .userId(1L)
+                .status(status)
+                .totalAmount(BigDecimal.TEN)
+                .createdAt(LocalDateTime.now())
+                .build();
+        order.setOrderItems(List.of(OrderItem.builder()
+                .order(order)
+                .sku("SKU-1")
+                .productName("Item")
+                .quantity(2)
+                .priceAtPurchase(BigDecimal.valueOf(5))
+                .build()));
+        order.setPayment(Payment.builder()
+                .order(order)
+                .amount(BigDecimal.TEN)
+                .status(paymentStatus)
+                .walletId(5L)
+                .createdAt(LocalDateTime.now())
+                .build());
+        return orderRepository.save(order).getId();
+    }
+
+    private Order reload(Long id) {
+        return orderRepository.findWithItemsById(id).orElseThrow();
+    }
+}
@@ -0,0 +1,391 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.WalletClient;
+import com.mazen.ecommerce.shop.client.dto.TransactionResponse;
+import com.mazen.ecommerce.shop.client.dto.TransactionType;
+import com.mazen.ecommerce.shop.client.dto.WalletResponse;
+import com.mazen.ecommerce.shop.model.Order;
+import com.mazen.ecommerce.shop.model.OrderItem;
+import com.mazen.ecommerce.shop.model.Payment;
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.model.SagaStepLog;
+import com.mazen.ecommerce.shop.model.enums.OrderStatus;
+import com.mazen.ecommerce.shop.model.enums.PaymentStatus;
+import com.mazen.ecommerce.shop.model.enums.SagaStatus;
+import com.mazen.ecommerce.shop.model.enums.SagaStepStatus;
+import com.mazen.ecommerce.shop.repository.OrderRepository;
+import com.mazen.ecommerce.shop.repository.SagaInstanceRepository;
+import com.mazen.ecommerce.shop.repository.SagaStepLogRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaOrchestrator;
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "shop.saga.max-attempts=3")
+@Import({SagaOrchestrator.class, CheckoutSaga.class, OrderCancellationSaga.class, PaymentRefundSaga.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CheckoutSagaTests {
+
+    @Autowired
+    private SagaOrchestrator sagaOrchestrator;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SagaInstanceRepository sagaRepository;
+
+    @Autowired
+    private SagaStepLogRepository stepLogRepository;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    @MockitoBean
+    private WalletClient walletClient;
+
+    @BeforeEach
+    void setUp() {
+        stepLogRepository.deleteAll();
+        sagaRepository.deleteAll();
+        orderRepository.deleteAll();
+        WalletResponse wallet = WalletResponse.builder().id(5L).build();
+        when(walletClient.getUserWallet(anyLong())).thenReturn(List.of(wallet));
+        when(walletClient.withdraw(anyLong(), any(), anyString())).thenReturn(TransactionResponse.builder().id(77L).build());
+    }
+
+    @Test
+    void happyPathReservesChargesAndConfirms() {
+        Long id = pendingOrder();
+        SagaInstance saga = checkout(id);
+
+        Order order = reload(id);
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        assertEquals(PaymentStatus.SUCCESS, order.getPayment().getStatus());
+        assertEquals("77", order.getPayment().getTransactionId());
+        assertEquals(5L, order.getPayment().getWalletId());
+        assertEquals(SagaStatus.COMPLETED, saga.getStatus());
+        assertNull(saga.getNextAttemptAt());
+        assertEquals(Map.of("reserve-stock", SagaStepStatus.SUCCEEDED,
+                "charge-wallet", SagaStepStatus.SUCCEEDED,
+                "confirm-reservation", SagaStepStatus.SUCCEEDED), steps(saga));
+        verify(inventoryClient).reserveStock(argThat(r -> r.getReservationKey().equals("order-" + id)));
+        verify(inventoryClient).confirmReservation("order-" + id);
+    }
+
+    @Test
+    void outOfStockCancelsBeforeCharging() {
+        Long id = pendingOrder();
+        when(inventoryClient.reserveStock(any())).thenThrow(feignError(409));
+
+        SagaInstance saga = checkout(id);
+
+        Order order = reload(id);
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertEquals("Some products in the cart are out of stock", order.getFailureReason());
+        assertEquals(PaymentStatus.FAILED, order.getPayment().getStatus());
+        assertEquals(SagaStatus.COMPENSATED, saga.getStatus());
+        verify(walletClient, never()).withdraw(anyLong(), any(), anyString());
+        verify(inventoryClient, never()).confirmReservation(anyString());
+    }
+
+    @Test
+    void lapsedReservationRefundsTheCharge() {
+        Long id = pendingOrder();
+        doThrow(feignError(409)).when(inventoryClient).confirmReservation(anyString());
+
+        SagaInstance saga = checkout(id);
+
+        Order order = reload(id);
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertEquals(PaymentStatus.REFUNDED, order.getPayment().getStatus());
+        assertEquals(SagaStatus.COMPENSATED, saga.getStatus());
+        verify(walletClient).deposit(eq(5L), argThat(r ->
+                r.getType() == TransactionType.DEPOSIT && r.getAmount().compareTo(BigDecimal.TEN) == 0),
+                eq("order-" + id + "-refund"));
+    }
+
+    @Test
+    void orderStatusFollowsTheSteps() {
+        Long id = pendingOrder();
+        doThrow(feignError(503)).when(inventoryClient).confirmReservation(anyString());
+
+        SagaInstance saga = checkout(id);
+
+        assertEquals(SagaStatus.RUNNING, saga.getStatus());
+        assertEquals(OrderStatus.PAID, reload(id).getStatus());
+
+        reset(inventoryClient);
+        sagaOrchestrator.process(saga.getId());
+
+        assertEquals(OrderStatus.CONFIRMED, reload(id).getStatus());
+    }
+
+    @Test
+    void declinedPaymentReleasesTheReservation() {
+        Long id = pendingOrder();
+        when(walletClient.withdraw(anyLong(), any(), anyString())).thenThrow(feignError(400));
+
+        SagaInstance saga = checkout(id);
+
+        Order order = reload(id);
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertEquals(PaymentStatus.FAILED, order.getPayment().getStatus());
+        assertEquals(SagaStatus.COMPENSATED, saga.getStatus());
+        assertEquals(SagaStepStatus.COMPENSATED, steps(saga).get("reserve-stock"));
+        assertEquals(SagaStepStatus.FAILED, steps(saga).get("charge-wallet"));
+        verify(inventoryClient).releaseReservations(argThat(r -> r.getReservationKeys().equals(List.of("order-" + id))));
+        verify(walletClient, never()).deposit(anyLong(), any(), anyString());
+        verify(inventoryClient, never()).confirmReservation(anyString());
+    }
+
+    @Test
+    void serverErrorOnWithdrawIsRetriedNotDeclined() {
+        Long id = pendingOrder();
+        when(walletClient.withdraw(anyLong(), any(), anyString()))
+                .thenThrow(feignError(503))
+                .thenReturn(TransactionResponse.builder().id(77L).build());
+
+        SagaInstance saga = checkout(id);
+
+        assertEquals(SagaStatus.RUNNING, saga.getStatus());
+        assertEquals(PaymentStatus.PENDING, reload(id).getPayment().getStatus());
+
+        sagaOrchestrator.process(saga.getId());
+
+        assertEquals(OrderStatus.CONFIRMED, reload(id).getStatus());
+        verify(walletClient, times(2)).withdraw(eq(5L), any(), eq("order-" + id + "-withdraw"));
+    }
+
+    @Test
+    void transientFailureIsRetriedFromThePersistedStage() {
+        Long id = pendingOrder();
+        when(walletClient.getUserWallet(anyLong())).thenThrow(feignError(503));
+
+        SagaInstance saga = checkout(id);
+
+        assertEquals(SagaStatus.RUNNING, saga.getStatus());
+        assertEquals(1, saga.getAttempts());
+        assertTrue(saga.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(SagaStepStatus.SUCCEEDED, steps(saga).get("reserve-stock"));
+        assertEquals(SagaStepStatus.PENDING, steps(saga).get("charge-wallet"));
+        assertEquals(OrderStatus.RESERVED, reload(id).getStatus());
+
+        WalletResponse wallet = WalletResponse.builder().id(5L).build();
+        reset(walletClient);
+        when(walletClient.getUserWallet(anyLong())).thenReturn(List.of(wallet));
+        when(walletClient.withdraw(anyLong(), any(), anyString())).thenReturn(TransactionResponse.builder().id(78L).build());
+
+        sagaOrchestrator.process(saga.getId());
+
+        assertEquals(OrderStatus.CONFIRMED, reload(id).getStatus());
+        verify(inventoryClient, times(1)).reserveStock(any()); // not reserved again
+        verify(walletClient, times(1)).withdraw(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsAndReleasesStock() {
+        Long id = pendingOrder();
+        when(walletClient.getUserWallet(anyLong())).thenThrow(feignError(503));
+
+        SagaInstance saga = sagaOrchestrator.start(CheckoutSaga.TYPE, id.toString());
+        for (int i = 0; i < 3; i++) {
+            sagaOrchestrator.process(saga.getId());
+        }
+
+        Order order = reload(id);
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertTrue(order.getFailureReason().startsWith("Gave up after 3 attempts"));
+        assertEquals(SagaStatus.COMPENSATED, sagaRepository.findById(saga.getId()).orElseThrow().getStatus());
+        verify(inventoryClient).releaseReservations(any());
+        verify(walletClient, never()).withdraw(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void unansweredWithdrawIsSentAgainWithTheSameKey() {
+        Long id = pendingOrder();
+        when(walletClient.withdraw(anyLong(), any(), anyString()))
+                .thenThrow(new RetryableException(-1, "Read timed out", Request.HttpMethod.POST, (Long) null, request()))
+                .thenReturn(TransactionResponse.builder().id(77L).build());
+
+        SagaInstance saga = checkout(id);
+
+        assertEquals(SagaStatus.RUNNING, saga.getStatus());
+        assertEquals(SagaStepStatus.PENDING, steps(saga).get("charge-wallet"));
+
+        sagaOrchestrator.process(saga.getId());
+
+        Order order = reload(id);
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        assertEquals(PaymentStatus.SUCCESS, order.getPayment().getStatus());
+        verify(walletClient, times(2)).withdraw(eq(5L), any(), eq("order-" + id + "-withdraw"));
+        verify(walletClient, never()).deposit(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void unansweredWithdrawIsSettledBeforeCompensating() {
+        Long id = pendingOrder();
+        // The wallet applied the withdraw but no response came back before the saga gave up;
+        // the replay during compensation returns the stored one
+        RetryableException timeout =
+                new RetryableException(-1, "Read timed out", Request.HttpMethod.POST, (Long) null, request());
+        when(walletClient.withdraw(anyLong(), any(), anyString()))
+                .thenThrow(timeout, timeout, timeout)
+                .thenReturn(TransactionResponse.builder().id(77L).build());
+
+        SagaInstance saga = checkout(id);
+        sagaOrchestrator.process(saga.getId());
+        sagaOrchestrator.process(saga.getId());
+
+        Order order = reload(id);
+        assertEquals(SagaStatus.COMPENSATED, sagaRepository.findById(saga.getId()).orElseThrow().getStatus());
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertEquals(PaymentStatus.REFUNDED, order.getPayment().getStatus());
+        verify(walletClient, times(4)).withdraw(eq(5L), any(), eq("order-" + id + "-withdraw"));
+        verify(walletClient).deposit(eq(5L), any(), eq("order-" + id + "-refund"));
+    }
+
+    @Test
+    void chargeInterruptedByACrashIsResentWithTheSameKey() {
+        Long id = pendingOrder();
+        SagaInstance saga = sagaOrchestrator.start(CheckoutSaga.TYPE, id.toString());
+        // What a worker that died during the withdraw leaves behind
+        saga.setCurrentStage(1);
+        sagaRepository.save(saga);
+        stepLogRepository.save(SagaStepLog.builder()
+                .sagaId(saga.getId())
+                .stepName("reserve-stock")
+                .stage(0)
+                .status(SagaStepStatus.SUCCEEDED)
+                .attempts(1)
+                .build());
+        stepLogRepository.save(SagaStepLog.builder()
+                .sagaId(saga.getId())
+                .stepName("charge-wallet")
+                .stage(1)
+                .status(SagaStepStatus.STARTED)
+                .attempts(1)
+                .build());
+
+        sagaOrchestrator.process(saga.getId());
+
+        assertEquals(SagaStatus.COMPLETED, sagaRepository.findById(saga.getId()).orElseThrow().getStatus());
+        assertEquals(OrderStatus.CONFIRMED, reload(id).getStatus());
+        verify(walletClient).withdraw(eq(5L), any(), eq("order-" + id + "-withdraw"));
+    }
+
+    @Test
+    void withdrawStillBeingProcessedIsRetried() {
+        Long id = pendingOrder();
+        when(walletClient.withdraw(anyLong(), any(), anyString())).thenThrow(feignError(409));
+
+        SagaInstance saga = checkout(id);
+
+        assertEquals(SagaStatus.RUNNING, saga.getStatus());
+        assertEquals(PaymentStatus.PENDING, reload(id).getPayment().getStatus());
+        verify(inventoryClient, never()).releaseReservations(any());
+    }
+
+    @Test
+    void cancellingAConfirmedOrderRefundsAndRestocks() {
+        Long id = pendingOrder();
+        checkout(id);
+
+        SagaInstance cancellation = sagaOrchestrator.start(OrderCancellationSaga.TYPE, id.toString());
+        sagaOrchestrator.process(cancellation.getId());
+
+        assertEquals(SagaStatus.COMPLETED, sagaRepository.findById(cancellation.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.REFUNDED, reload(id).getPayment().getStatus());
+        verify(walletClient).deposit(eq(5L), any(), eq("order-" + id + "-refund"));
+        verify(inventoryClient).increaseStockBulk(argThat(r ->
+                r.getReference().equals("order-" + id + "-cancel") && r.getLines().get(0).getQuantity() == 2));
+    }
+
+    @Test
+    void refundSagaGivesTheChargeBackOnce() {
+        Long id = pendingOrder();
+        checkout(id);
+
+        SagaInstance refund = sagaOrchestrator.start(PaymentRefundSaga.TYPE, id.toString());
+        sagaOrchestrator.process(refund.getId());
+        sagaOrchestrator.process(refund.getId());
+
+        assertEquals(SagaStatus.COMPLETED, sagaRepository.findById(refund.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.REFUNDED, reload(id).getPayment().getStatus());
+        verify(walletClient, times(1)).deposit(eq(5L), any(), eq("order-" + id + "-refund"));
+        verify(inventoryClient, never()).increaseStockBulk(any());
+    }
+
+    private SagaInstance checkout(Long orderId) {
+        SagaInstance saga = sagaOrchestrator.start(CheckoutSaga.TYPE, orderId.toString());
+        sagaOrchestrator.process(saga.getId());
+        return sagaRepository.findById(saga.getId()).orElseThrow();
+    }
+
+    private Map<String, SagaStepStatus> steps(SagaInstance saga) {
+        return stepLogRepository.findBySagaIdOrderByIdAsc(saga.getId()).stream()
+                .collect(Collectors.toMap(SagaStepLog::getStepName, SagaStepLog::getStatus));
+    }
+
+    private Long pendingOrder() {
+        Order order = Order.builder()
+                .userId(1L)
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.TEN)
+                .createdAt(LocalDateTime.now())
+                .build();
+        order.setOrderItems(List.of(OrderItem.builder()
+                .order(order)
+                .sku("SKU-1")
+                .productName("Item")
+                .quantity(2)
+                .priceAtPurchase(BigDecimal.valueOf(5))
+                .build()));
+        order.setPayment(Payment.builder()
+                .order(order)
+                .amount(BigDecimal.TEN)
+                .status(PaymentStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build());
+        return orderRepository.save(order).getId();
+    }
+
+    private Order reload(Long id) {
+        return orderRepository.findWithItemsById(id).orElseThrow();
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.POST, "/test", new HashMap<>(), null,
+                StandardCharsets.UTF_8, null);
+    }
+
+    private static FeignException feignError(int status) {
+        return FeignException.errorStatus("test", feign.Response.builder()
+                .status(status)
+                .reason("test")
+                .request(request())
+                .headers(new HashMap<>())
+                .build());
+    }
+}
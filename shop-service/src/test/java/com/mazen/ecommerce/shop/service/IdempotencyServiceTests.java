@@ -0,0 +1,101 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.dto.order.CreateOrderRequest;
+import com.mazen.ecommerce.shop.dto.order.OrderItemResponse;
+import com.mazen.ecommerce.shop.dto.order.OrderResponse;
+import com.mazen.ecommerce.shop.model.IdempotencyRecord;
+import com.mazen.ecommerce.shop.model.enums.IdempotencyStatus;
+import com.mazen.ecommerce.shop.model.enums.OrderStatus;
+import com.mazen.ecommerce.shop.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(IdempotencyService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTests {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    private final AtomicInteger ordersPlaced = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        recordRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedCheckoutReplaysTheFirstOrder() throws Exception {
+        OrderResponse first = placeOrder("checkout-1", 3L);
+        OrderResponse repeat = placeOrder("checkout-1", 3L);
+
+        assertEquals(1, ordersPlaced.get());
+        assertEquals(first, repeat);
+        assertEquals(OrderStatus.SHIPPED, repeat.getStatus());
+        assertEquals("SKU-1", repeat.getOrderItems().get(0).getSku());
+
+        assertThrows(IdempotencyService.InvalidIdempotencyKeyException.class, () -> placeOrder("checkout-1", 4L));
+        placeOrder("checkout-2", 4L);
+        assertEquals(2, ordersPlaced.get());
+    }
+
+    @Test
+    void failedCheckoutReleasesTheKey() throws Exception {
+        CreateOrderRequest request = new CreateOrderRequest(3L);
+        assertThrows(IllegalAccessException.class, () -> idempotencyService.execute("order:1", "checkout-1", request,
+                OrderResponse.class, () -> {
+                    throw new IllegalAccessException("Cart does not belong to user: 1");
+                }));
+        assertEquals(0, recordRepository.count());
+
+        placeOrder("checkout-1", 3L);
+        assertEquals(1, ordersPlaced.get());
+    }
+
+    @Test
+    void keyIsOnlyTakenOverOnceItsOwnerIsStale() throws Exception {
+        OrderResponse running = placeOrder("checkout-1", 3L);
+        IdempotencyRecord record = recordRepository.findAll().get(0);
+        record.setStatus(IdempotencyStatus.IN_PROGRESS);
+        record.setResponseBody(null);
+        recordRepository.save(record);
+
+        assertThrows(IdempotencyService.IdempotencyKeyInUseException.class, () -> placeOrder("checkout-1", 3L));
+
+        record.setLockedAt(LocalDateTime.now().minusMinutes(10)); // its owner died mid-checkout
+        recordRepository.save(record);
+        assertEquals(running.getUserId(), placeOrder("checkout-1", 3L).getUserId());
+        assertEquals(2, ordersPlaced.get());
+    }
+
+    private OrderResponse placeOrder(String key, Long cartId) throws IllegalAccessException {
+        return idempotencyService.execute("order:1", key, new CreateOrderRequest(cartId), OrderResponse.class, () -> {
+            ordersPlaced.incrementAndGet();
+            return OrderResponse.builder()
+                    .id((long) ordersPlaced.get())
+                    .userId(1L)
+                    .status(OrderStatus.SHIPPED)
+                    .totalAmount(BigDecimal.TEN)
+                    .createdAt(LocalDateTime.now().withNano(0))
+                    .orderItems(List.of(OrderItemResponse.builder().sku("SKU-1").quantity(2).build()))
+                    .totalItems(2)
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.dto.StockLine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checkout latency of the per-item inventory path against an inventory with a fixed round trip: the calls one
+ * after the other (maxConcurrency = 1) versus fanned out. Kept out of InventoryFanOutTests so the unit tests do
+ * not depend on timing; start main() (or org.openjdk.jmh.Main) from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryFanOutBenchmark {
+
+    private static final long INVENTORY_RTT_MS = 5;
+
+    @Param({"24"})
+    private int cartSize;
+
+    @Param({"1", "8"})
+    private int maxConcurrency;
+
+    private InventoryFanOut fanOut;
+    private List<StockLine> cart;
+
+    @Setup
+    public void setUp() {
+        // stubOnly: nothing is recorded per call, so the mock does not grow over millions of invocations
+        InventoryClient inventoryClient = mock(InventoryClient.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            Thread.sleep(INVENTORY_RTT_MS);
+            return null;
+        }).when(inventoryClient).decreaseStock(anyString(), anyInt(), anyString(), anyString());
+
+        fanOut = new InventoryFanOut(inventoryClient, mock(OutboxService.class, withSettings().stubOnly()), maxConcurrency);
+        cart = IntStream.range(0, cartSize)
+                .mapToObj(i -> new StockLine("SKU-" + i, 1))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public boolean decreaseAll() {
+        return fanOut.decreaseAll(cart, "cart-1");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InventoryFanOutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.dto.StockLine;
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InventoryFanOutTests {
+
+    private static final long INVENTORY_RTT_MS = 50;
+    private static final int CART_SIZE = 24;
+
+    private InventoryClient inventoryClient;
+    private OutboxService outboxService;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        // Stubbed inventory-service: every call takes one simulated round trip
+        inventoryClient = mock(InventoryClient.class);
+        when(inventoryClient.decreaseStock(anyString(), anyInt(), anyString(), anyString())).thenAnswer(invocation -> {
+            String sku = invocation.getArgument(0);
+            simulateRoundTrip();
+            if (sku.equals("SOLD-OUT")) {
+                throw conflict();
+            }
+            if (sku.equals("NO-ANSWER")) {
+                throw new RetryableException(-1, "Read timed out", Request.HttpMethod.POST, (Long) null, request());
+            }
+            return null;
+        });
+        outboxService = mock(OutboxService.class);
+    }
+
+    @Test
+    void callsOverlapUpToTheBound() {
+        assertTrue(new InventoryFanOut(inventoryClient, outboxService, 8).decreaseAll(cart(CART_SIZE), "cart-1"));
+
+        assertTrue(maxInFlight.get() > 1, "calls never overlapped");
+        assertTrue(maxInFlight.get() <= 8, maxInFlight.get() + " calls in flight");
+        verify(inventoryClient, times(CART_SIZE)).decreaseStock(anyString(), anyInt(), eq("cart-1"), startsWith("fan-out-"));
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void firstFailureStopsTheFanOutAndCompensatesWhatWasTaken() {
+        List<StockLine> cart = new ArrayList<>(cart(3));
+        cart.add(new StockLine("SOLD-OUT", 1));
+        cart.addAll(cart(20).subList(3, 20));
+
+        assertFalse(new InventoryFanOut(inventoryClient, outboxService, 2).decreaseAll(cart, "cart-2"));
+
+        // Every line that got decremented is queued for restock, and the lines after the failure were never started
+        int decreased = mockingDetails(inventoryClient).getInvocations().stream()
+                .filter(i -> i.getMethod().getName().equals("decreaseStock")
+                        && !i.getArgument(0).equals("SOLD-OUT"))
+                .mapToInt(i -> 1)
+                .sum();
+        verify(outboxService).restock(argThat(lines -> lines.size() == decreased
+                && lines.stream().noneMatch(line -> line.getSku().equals("SOLD-OUT"))), eq("cart-2"), startsWith("fan-out-"));
+        assertTrue(decreased < cart.size() - 1);
+        verify(inventoryClient, never()).increaseStock(anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    void unansweredDecrementIsRevokedWithTheOthers() {
+        List<StockLine> cart = List.of(new StockLine("SKU-0", 1), new StockLine("NO-ANSWER", 1));
+
+        assertFalse(new InventoryFanOut(inventoryClient, outboxService, 2).decreaseAll(cart, "cart-3"));
+
+        // Inventory gives back only what the decrements under this request id actually took
+        String requestId = mockingDetails(inventoryClient).getInvocations().iterator().next().getArgument(3);
+        verify(inventoryClient, times(2)).decreaseStock(anyString(), anyInt(), eq("cart-3"), eq(requestId));
+        verify(outboxService).restock(argThat(lines -> lines.size() == 2), eq("cart-3"), eq(requestId));
+    }
+
+    private void simulateRoundTrip() throws InterruptedException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(INVENTORY_RTT_MS);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.POST, "/test", new HashMap<>(), null, StandardCharsets.UTF_8, null);
+    }
+
+    private static FeignException conflict() {
+        return FeignException.errorStatus("decreaseStock", feign.Response.builder()
+                .status(409)
+                .reason("Conflict")
+                .request(request())
+                .headers(new HashMap<>())
+                .build());
+    }
+
+    private List<StockLine> cart(int items) {
+        return IntStream.range(0, items)
+                .mapToObj(i -> new StockLine("SKU-" + i, 1))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,158 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.WalletClient;
+import com.mazen.ecommerce.shop.client.dto.ReservationResponse;
+import com.mazen.ecommerce.shop.client.dto.TransactionResponse;
+import com.mazen.ecommerce.shop.client.dto.WalletResponse;
+import com.mazen.ecommerce.shop.dto.order.CreateOrderRequest;
+import com.mazen.ecommerce.shop.dto.order.OrderResponse;
+import com.mazen.ecommerce.shop.model.Cart;
+import com.mazen.ecommerce.shop.model.CartItem;
+import com.mazen.ecommerce.shop.model.Order;
+import com.mazen.ecommerce.shop.model.SagaInstance;
+import com.mazen.ecommerce.shop.model.enums.OrderStatus;
+import com.mazen.ecommerce.shop.model.enums.PaymentStatus;
+import com.mazen.ecommerce.shop.repository.CartRepository;
+import com.mazen.ecommerce.shop.repository.OrderRepository;
+import com.mazen.ecommerce.shop.repository.SagaInstanceRepository;
+import com.mazen.ecommerce.shop.service.saga.SagaOrchestrator;
+import com.mazen.ecommerce.shop.service.saga.SagaWorker;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
+import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// The resilience aspects are loaded, so the adapters' fallbacks run as they do in the service
+@DataJpaTest
+@ImportAutoConfiguration({AopAutoConfiguration.class, CircuitBreakerAutoConfiguration.class, RetryAutoConfiguration.class})
+@Import({OrderService.class, InventoryServiceAdapter.class, WalletServiceAdapter.class,
+        SagaOrchestrator.class, CheckoutSaga.class, OrderCancellationSaga.class, PaymentRefundSaga.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SagaInstanceRepository sagaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    @MockitoBean
+    private WalletClient walletClient;
+
+    @MockitoBean
+    private InventoryFanOut inventoryFanOut;
+
+    @MockitoBean
+    private OutboxService outboxService;
+
+    @MockitoBean
+    private SagaWorker sagaWorker;
+
+    @BeforeEach
+    void setUp() {
+        sagaRepository.deleteAll();
+        orderRepository.deleteAll();
+        cartRepository.deleteAll();
+        ReservationResponse held = new ReservationResponse();
+        held.setStatus("HELD");
+        when(inventoryClient.reserveStock(any())).thenReturn(held);
+        when(walletClient.getUserWallet(anyLong())).thenReturn(List.of(WalletResponse.builder().id(5L).build()));
+        when(walletClient.withdraw(anyLong(), any(), anyString())).thenReturn(TransactionResponse.builder().id(77L).build());
+    }
+
+    @Test
+    void paidCartIsShippedOnceTheReservationIsConfirmed() {
+        Cart cart = cart();
+
+        OrderResponse response = checkout(cart);
+
+        assertEquals(OrderStatus.SHIPPED, response.getStatus());
+        verify(inventoryClient).confirmReservation("cart-" + cart.getId());
+        assertTrue(sagaRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void confirmFailingAfterTheChargeStartsTheRefund() {
+        Cart cart = cart();
+        doThrow(feignError(503)).when(inventoryClient).confirmReservation(anyString());
+
+        OrderResponse response = checkout(cart);
+
+        assertEquals(OrderStatus.CANCELLED, response.getStatus());
+        Order order = orderRepository.findWithItemsById(response.getId()).orElseThrow();
+        assertEquals(PaymentStatus.SUCCESS, order.getPayment().getStatus());
+        assertEquals(5L, order.getPayment().getWalletId());
+
+        SagaInstance refund = sagaRepository.findByTypeAndBusinessKey(PaymentRefundSaga.TYPE, order.getId().toString())
+                .orElseThrow();
+        verify(sagaWorker).dispatch(refund.getId());
+        verify(outboxService).releaseReservation("cart-" + cart.getId());
+    }
+
+    // The web layer keeps a session open for the request (open-in-view), so the cart's items load lazily
+    private OrderResponse checkout(Cart cart) {
+        return transactionTemplate.execute(status -> {
+            try {
+                return orderService.createOrder(1L, CreateOrderRequest.builder().cartId(cart.getId()).build());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private Cart cart() {
+        Cart cart = Cart.builder().userId(1L).cartItems(new ArrayList<>()).build();
+        cart.getCartItems().add(CartItem.builder()
+                .cart(cart)
+                .sku("SKU-1")
+                .productName("Widget")
+                .quantity(2)
+                .unitPrice(BigDecimal.valueOf(5))
+                .build());
+        return cartRepository.save(cart);
+    }
+
+    private static FeignException feignError(int status) {
+        return FeignException.errorStatus("test", feign.Response.builder()
+                .status(status)
+                .reason("test")
+                .request(Request.create(Request.HttpMethod.POST, "/test", new HashMap<>(), null,
+                        StandardCharsets.UTF_8, null))
+                .headers(new HashMap<>())
+                .build());
+    }
+}
@@ -0,0 +1,106 @@
+package com.mazen.ecommerce.shop.service;
+
+import com.mazen.ecommerce.shop.client.InventoryClient;
+import com.mazen.ecommerce.shop.client.dto.BulkStockRequest;
+import com.mazen.ecommerce.shop.client.dto.ReservationKeysRequest;
+import com.mazen.ecommerce.shop.client.dto.StockLine;
+import com.mazen.ecommerce.shop.model.OutboxMessage;
+import com.mazen.ecommerce.shop.model.enums.OutboxStatus;
+import com.mazen.ecommerce.shop.repository.OutboxMessageRepository;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "shop.outbox.max-attempts=2")
+@Import({OutboxService.class, OutboxRelay.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTests {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @MockitoBean
+    private InventoryClient inventoryClient;
+
+    @BeforeEach
+    void setUp() {
+        outboxMessageRepository.deleteAll();
+    }
+
+    @Test
+    void releasesAreBatchedAndRestocksSentWithTheirLines() {
+        outboxService.releaseReservation("cart-1");
+        outboxService.releaseReservation("cart-2");
+        outboxService.restock(List.of(new StockLine("SKU-1", 2), new StockLine("SKU-2", 1)), "cart-3");
+
+        assertEquals(3, outboxRelay.relayPending());
+
+        ArgumentCaptor<ReservationKeysRequest> releases = ArgumentCaptor.forClass(ReservationKeysRequest.class);
+        verify(inventoryClient, times(1)).releaseReservations(releases.capture());
+        assertEquals(List.of("cart-1", "cart-2"), releases.getValue().getReservationKeys());
+
+        ArgumentCaptor<BulkStockRequest> restock = ArgumentCaptor.forClass(BulkStockRequest.class);
+        verify(inventoryClient).increaseStockBulk(restock.capture());
+        assertEquals("cart-3", restock.getValue().getReference());
+        assertTrue(restock.getValue().getRequestId().startsWith("outbox-"));
+        assertEquals(List.of(new StockLine("SKU-1", 2), new StockLine("SKU-2", 1)), restock.getValue().getLines());
+
+        assertTrue(outboxMessageRepository.findAll().stream().allMatch(m -> m.getStatus() == OutboxStatus.SENT));
+        assertEquals(0, outboxRelay.relayPending()); // nothing is delivered twice
+    }
+
+    @Test
+    void failedDeliveryIsRetriedLaterAndEventuallyDeadLettered() {
+        OutboxMessage message = outboxService.releaseReservation("cart-1");
+        when(inventoryClient.releaseReservations(any())).thenThrow(feignError());
+
+        assertEquals(0, outboxRelay.relayPending());
+        OutboxMessage retried = outboxMessageRepository.findById(message.getId()).orElseThrow();
+        assertEquals(OutboxStatus.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertTrue(retried.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(retried.getLastError());
+
+        assertEquals(0, outboxRelay.relayPending()); // backing off, not due yet
+        verify(inventoryClient, times(1)).releaseReservations(any());
+
+        retried.setNextAttemptAt(LocalDateTime.now());
+        outboxMessageRepository.save(retried);
+        outboxRelay.relayPending();
+
+        assertEquals(OutboxStatus.FAILED, outboxMessageRepository.findById(message.getId()).orElseThrow().getStatus());
+    }
+
+    private static FeignException feignError() {
+        Request request = Request.create(Request.HttpMethod.POST, "/test", new HashMap<>(), null,
+                StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("test", feign.Response.builder()
+                .status(503)
+                .reason("test")
+                .request(request)
+                .build());
+    }
+}
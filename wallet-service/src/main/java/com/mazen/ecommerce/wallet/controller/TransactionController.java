@@ -2,6 +2,7 @@ package com.mazen.ecommerce.wallet.controller;
 
 import com.mazen.ecommerce.wallet.dto.transaction.CreateTransactionRequest;
 import com.mazen.ecommerce.wallet.dto.transaction.TransactionResponse;
+import com.mazen.ecommerce.wallet.service.IdempotencyService;
 import com.mazen.ecommerce.wallet.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,19 +17,25 @@ import org.springframework.web.bind.annotation.*;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
 
+    // A repeated request with the same Idempotency-Key gets the first response back instead of moving money again
     @PostMapping("/{walletId}/deposit")
     private ResponseEntity<TransactionResponse> deposit(@PathVariable Long walletId,
-                                                        @Valid @RequestBody CreateTransactionRequest request){
+                                                        @Valid @RequestBody CreateTransactionRequest request,
+                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
 
-        return ResponseEntity.ok(transactionService.deposit(walletId,request));
+        return ResponseEntity.ok(idempotencyService.execute("deposit:" + walletId, idempotencyKey, request,
+                TransactionResponse.class, () -> transactionService.deposit(walletId, request)));
     }
 
     @PostMapping("/{walletId}/withdraw")
     private ResponseEntity<TransactionResponse> withdraw(@PathVariable Long walletId,
-                                                        @Valid @RequestBody CreateTransactionRequest request){
+                                                        @Valid @RequestBody CreateTransactionRequest request,
+                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
 
-        return ResponseEntity.ok(transactionService.withdraw(walletId,request));
+        return ResponseEntity.ok(idempotencyService.execute("withdraw:" + walletId, idempotencyKey, request,
+                TransactionResponse.class, () -> transactionService.withdraw(walletId, request)));
     }
 
     @GetMapping("/{walletId}/history")
@@ -3,14 +3,18 @@ package com.mazen.ecommerce.wallet.dto.transaction;
 import com.mazen.ecommerce.wallet.model.Wallet;
 import com.mazen.ecommerce.wallet.model.enums.TransactionType;
 import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Builder
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TransactionResponse {
 
     private Long id;
@@ -0,0 +1,6 @@
+package com.mazen.ecommerce.wallet.model.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS, // the first request with this key is running
+    COMPLETED    // done, the stored response is replayed to repeats
+}
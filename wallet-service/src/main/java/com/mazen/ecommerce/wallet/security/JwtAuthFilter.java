@@ -15,12 +15,14 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final VerifiedClaimsCache verifiedClaimsCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -28,6 +30,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                                     FilterChain filterChain)
             throws ServletException, IOException {
 
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response); // already authenticated from gateway identity headers
+            return;
+        }
+
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -36,12 +43,15 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7); // remove "Bearer "
-        if (!jwtUtil.validateToken(token)) {
+
+        // One verification per token: later requests with the same token reuse the verified claims
+        Optional<Claims> verifiedClaims = verifiedClaimsCache.get(token, jwtUtil::parseValidClaims);
+        if (verifiedClaims.isEmpty()) {
             filterChain.doFilter(request, response); // invalid token → skip
             return;
         }
 
-        Claims claims = jwtUtil.parseClaims(token).getBody();
+        Claims claims = verifiedClaims.get();
 
         String email = claims.getSubject(); // we set email as subject
         String role = claims.get("role", String.class);
@@ -3,11 +3,13 @@ package com.mazen.ecommerce.wallet.security;
 import com.mazen.ecommerce.wallet.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
 @Service
 public class JwtUtil {
@@ -18,8 +20,15 @@ public class JwtUtil {
     @Value("${jwt.expiration}") // default: 1 day
     private long jwtExpirationMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(User user) {
@@ -29,7 +38,7 @@ public class JwtUtil {
                 .claim("role", user.getRole().name())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -38,19 +47,20 @@ public class JwtUtil {
     }
 
     public boolean validateToken(String token) {
+        return parseValidClaims(token).isPresent();
+    }
+
+    // Verifies the token and returns its claims in one parse, or empty if it is not valid
+    public Optional<Claims> parseValidClaims(String token) {
         try {
-            parseClaims(token);
-            return true;
+            return Optional.of(parseClaims(token).getBody());
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
 
     public Jws<Claims> parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+        return jwtParser.parseClaimsJws(token);
     }
 
 }
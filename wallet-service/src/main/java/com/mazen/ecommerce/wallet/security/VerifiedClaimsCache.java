@@ -0,0 +1,84 @@
+package com.mazen.ecommerce.wallet.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already-verified JWT claims keyed by a SHA-256 digest of the token,
+ * so repeated requests with the same token skip the HMAC verification.
+ * Entries expire at the token's exp (or the configured TTL, whichever comes first).
+ */
+@Component
+public class VerifiedClaimsCache {
+
+    private final Cache<String, Claims> cache;
+    private final Duration ttl;
+    private final boolean enabled;
+
+    public VerifiedClaimsCache(@Value("${security.jwt.claims-cache.enabled:true}") boolean enabled,
+                               @Value("${security.jwt.claims-cache.max-size:10000}") long maxSize,
+                               @Value("${security.jwt.claims-cache.ttl:15m}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String key, Claims claims) -> timeToLive(claims)))
+                .recordStats()
+                .build();
+
+        // Hit ratio = cache.gets{result=hit} / cache.gets under /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "wallet.verified-claims");
+    }
+
+    public Optional<Claims> get(String token, Function<String, Optional<Claims>> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+
+        String key = digest(token);
+        Claims cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<Claims> verified = verifier.apply(token);
+        verified.ifPresent(claims -> cache.put(key, claims));
+        return verified;
+    }
+
+    private Duration timeToLive(Claims claims) {
+        if (claims.getExpiration() == null) {
+            return ttl;
+        }
+        Duration untilExpiry = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+        if (untilExpiry.isNegative()) {
+            return Duration.ZERO;
+        }
+        return untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.mazen.ecommerce.wallet.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazen.ecommerce.wallet.model.IdempotencyRecord;
+import com.mazen.ecommerce.wallet.model.enums.IdempotencyStatus;
+import com.mazen.ecommerce.wallet.repository.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for wallet mutations: the first request with a key runs, repeats within the TTL get
+ * its stored response back instead of moving money again. The action and the stored response commit in one
+ * transaction, so a key is either completed with its effect or released without one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Value("${wallet.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${wallet.idempotency.lock-timeout:1m}")
+    private Duration lockTimeout;
+
+    /**
+     * Runs the action once per (scope, key). Without a key the action simply runs.
+     *
+     * @param scope   the operation and its target, so the same key can be used on different wallets
+     * @param request the request body, a repeat must send the same one
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyRecord record = acquire(scope, key, hash(request));
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            log.debug("Replaying response of {} for Idempotency-Key {}", scope, key);
+            return read(record, responseType);
+        }
+
+        try {
+            return transactionTemplate.execute(tx -> {
+                T response = action.get();
+                record.setStatus(IdempotencyStatus.COMPLETED);
+                record.setResponseBody(write(response));
+                recordRepository.save(record);
+                return response;
+            });
+        } catch (RuntimeException e) {
+            // Rolled back, nothing was applied: a retry with the same key runs the action again
+            recordRepository.delete(record);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        int deleted = recordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    // Returns the completed record to replay, or an IN_PROGRESS record owned by this request
+    private IdempotencyRecord acquire(String scope, String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> existing = recordRepository.findByScopeAndIdempotencyKey(scope, key)
+                .filter(record -> {
+                    if (record.getExpiresAt().isAfter(now)) {
+                        return true;
+                    }
+                    recordRepository.delete(record); // expired but not cleaned up yet
+                    return false;
+                });
+
+        if (existing.isEmpty()) {
+            try {
+                return recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .scope(scope)
+                        .idempotencyKey(key)
+                        .requestHash(requestHash)
+                        .status(IdempotencyStatus.IN_PROGRESS)
+                        .lockedAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request with the same key got there first
+                existing = recordRepository.findByScopeAndIdempotencyKey(scope, key);
+                if (existing.isEmpty()) {
+                    throw new IdempotencyKeyInUseException(key);
+                }
+            }
+        }
+
+        IdempotencyRecord record = existing.get();
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            return record;
+        }
+
+        // Still running elsewhere, unless its owner died (its transaction rolled back, so nothing was applied)
+        if (recordRepository.takeOver(record.getId(), now.minus(lockTimeout), now) == 0) {
+            throw new IdempotencyKeyInUseException(key);
+        }
+        record.setLockedAt(now);
+        return record;
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store response", e);
+        }
+    }
+
+    private <T> T read(IdempotencyRecord record, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(record.getResponseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response of idempotency key " + record.getId(), e);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public class IdempotencyKeyInUseException extends RuntimeException {
+        public IdempotencyKeyInUseException(String key) {
+            super("A request with Idempotency-Key " + key + " is still being processed, retry later");
+        }
+    }
+
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public class InvalidIdempotencyKeyException extends RuntimeException {
+        public InvalidIdempotencyKeyException(String message) {
+            super(message);
+        }
+    }
+}
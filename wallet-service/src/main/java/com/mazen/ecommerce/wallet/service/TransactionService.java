@@ -14,8 +14,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -62,7 +64,7 @@ public class TransactionService {
 
         BigDecimal newBalance = wallet.getBalance().subtract(request.getAmount());
         if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new IllegalArgumentException("Insufficient balance");
+            throw new InsufficientBalanceException();
         }
 
         wallet.setBalance(newBalance);
@@ -103,4 +105,12 @@ public class TransactionService {
                 .timestamp(tx.getTimestamp())
                 .build();
     }
+
+    // A 4xx, so callers can tell a declined withdraw from a wallet-service failure worth retrying
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public class InsufficientBalanceException extends IllegalArgumentException {
+        public InsufficientBalanceException() {
+            super("Insufficient balance");
+        }
+    }
 }
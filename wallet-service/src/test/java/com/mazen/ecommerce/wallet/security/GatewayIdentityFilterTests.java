@@ -0,0 +1,91 @@
+package com.mazen.ecommerce.wallet.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayIdentityFilterTests {
+
+    private static final String KEY = "myGatewayIdentityKey1234567890abcdefghijklmn";
+
+    private final GatewayIdentityFilter filter = new GatewayIdentityFilter(true, KEY, Duration.ofMinutes(5));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromSignedHeaders() throws Exception {
+        MockHttpServletRequest request = request("7", "user@ecom.com", "USER", System.currentTimeMillis(), KEY);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("user@ecom.com", authentication.getName());
+        assertEquals(7L, authentication.getDetails());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+    }
+
+    @Test
+    void ignoresTamperedOrStaleHeaders() throws Exception {
+        MockHttpServletRequest tampered = request("7", "user@ecom.com", "USER", System.currentTimeMillis(), KEY);
+        tampered.removeHeader("X-User-Role");
+        tampered.addHeader("X-User-Role", "ADMIN");
+        filter.doFilter(tampered, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        long tenMinutesAgo = System.currentTimeMillis() - Duration.ofMinutes(10).toMillis();
+        MockHttpServletRequest stale = request("7", "user@ecom.com", "USER", tenMinutesAgo, KEY);
+        filter.doFilter(stale, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        MockHttpServletRequest otherKey = request("7", "user@ecom.com", "USER", System.currentTimeMillis(), KEY + "x");
+        filter.doFilter(otherKey, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void ignoresHeadersReplayedAgainstAnotherRequest() throws Exception {
+        long now = System.currentTimeMillis();
+
+        MockHttpServletRequest otherPath = request("7", "user@ecom.com", "USER", now, KEY);
+        otherPath.setRequestURI("/api/wallets/1/withdraw");
+        filter.doFilter(otherPath, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        MockHttpServletRequest otherMethod = request("7", "user@ecom.com", "USER", now, KEY);
+        otherMethod.setMethod("POST");
+        filter.doFilter(otherMethod, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private MockHttpServletRequest request(String userId, String email, String role, long timestamp, String key)
+            throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] signature = mac.doFinal(("GET\n/api/wallets/me\n" + userId + "\n" + email + "\n" + role + "\n" + timestamp)
+                .getBytes(StandardCharsets.UTF_8));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallets/me");
+        request.addHeader("X-User-Id", userId);
+        request.addHeader("X-User-Email", email);
+        request.addHeader("X-User-Role", role);
+        request.addHeader("X-User-Timestamp", Long.toString(timestamp));
+        request.addHeader("X-User-Signature", Base64.getUrlEncoder().withoutPadding().encodeToString(signature));
+        return request;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mazen.ecommerce.wallet.service;
+
+import com.mazen.ecommerce.wallet.dto.transaction.CreateTransactionRequest;
+import com.mazen.ecommerce.wallet.dto.transaction.TransactionResponse;
+import com.mazen.ecommerce.wallet.model.User;
+import com.mazen.ecommerce.wallet.model.Wallet;
+import com.mazen.ecommerce.wallet.model.enums.Role;
+import com.mazen.ecommerce.wallet.model.enums.TransactionType;
+import com.mazen.ecommerce.wallet.repository.IdempotencyRecordRepository;
+import com.mazen.ecommerce.wallet.repository.TransactionRepository;
+import com.mazen.ecommerce.wallet.repository.UserRepository;
+import com.mazen.ecommerce.wallet.repository.WalletRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+@Import({IdempotencyService.class, TransactionService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTests {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long walletId;
+
+    @BeforeEach
+    void setUp() {
+        recordRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = userRepository.save(User.builder()
+                .name("Buyer")
+                .email("buyer@ecom.com")
+                .password("encoded")
+                .role(Role.USER)
+                .build());
+        walletId = walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(BigDecimal.valueOf(100))
+                .walletName("Main")
+                .walletType("spending")
+                .build()).getId();
+    }
+
+    @Test
+    void repeatedWithdrawIsAppliedOnceAndReplaysTheFirstResponse() {
+        TransactionResponse first = withdraw("order-1-withdraw", 30);
+        TransactionResponse repeat = withdraw("order-1-withdraw", 30);
+
+        assertEquals(first.getId(), repeat.getId());
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(balance()));
+        assertEquals(1, transactionRepository.count());
+
+        withdraw("order-2-withdraw", 30); // another key is another withdraw
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(balance()));
+    }
+
+    @Test
+    void keyCannotBeReusedForAnotherRequest() {
+        withdraw("order-1-withdraw", 30);
+
+        assertThrows(IdempotencyService.InvalidIdempotencyKeyException.class, () -> withdraw("order-1-withdraw", 50));
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(balance()));
+    }
+
+    @Test
+    void failedRequestReleasesTheKey() {
+        assertThrows(IllegalArgumentException.class, () -> withdraw("order-1-withdraw", 500)); // insufficient balance
+        assertEquals(0, recordRepository.count());
+
+        walletRepository.findById(walletId).ifPresent(wallet -> {
+            wallet.setBalance(BigDecimal.valueOf(1000));
+            walletRepository.save(wallet);
+        });
+        withdraw("order-1-withdraw", 500);
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(balance()));
+    }
+
+    private TransactionResponse withdraw(String key, int amount) {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(TransactionType.WITHDRAW);
+        request.setAmount(BigDecimal.valueOf(amount));
+        return idempotencyService.execute("withdraw:" + walletId, key, request, TransactionResponse.class,
+                () -> transactionService.withdraw(walletId, request));
+    }
+
+    private BigDecimal balance() {
+        return walletRepository.findById(walletId).orElseThrow().getBalance();
+    }
+}